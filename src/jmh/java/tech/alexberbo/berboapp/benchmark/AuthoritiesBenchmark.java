@@ -0,0 +1,45 @@
+package tech.alexberbo.berboapp.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import tech.alexberbo.berboapp.model.Role;
+import tech.alexberbo.berboapp.model.User;
+import tech.alexberbo.berboapp.model.UserPrincipal;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserPrincipal.getAuthorities is called by every authorization check: it used to split the permissions string each time,
+ * now it returns the list the Role parsed once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthoritiesBenchmark {
+    private Role role;
+    private UserPrincipal principal;
+
+    @Setup
+    public void setup() {
+        role = Role.builder().id(4L).name("ROLE_SYSADMIN")
+                .permissions("READ:USER,READ:CUSTOMER,CREATE:USER,CREATE:CUSTOMER,UPDATE:USER,UPDATE:CUSTOMER,DELETE:USER,DELETE:CUSTOMER")
+                .build();
+        principal = new UserPrincipal(User.builder().id(1L).email("benchmark@alexberbo.tech").build(), role);
+    }
+
+    @Benchmark
+    public List<GrantedAuthority> parsePerCall() {
+        return AuthorityUtils.commaSeparatedStringToAuthorityList(role.getPermissions());
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> principal() {
+        return principal.getAuthorities();
+    }
+}
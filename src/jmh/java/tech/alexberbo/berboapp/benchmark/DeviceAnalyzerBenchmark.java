@@ -0,0 +1,56 @@
+package tech.alexberbo.berboapp.benchmark;
+
+import nl.basjes.parse.useragent.UserAgent;
+import nl.basjes.parse.useragent.UserAgentAnalyzer;
+import org.openjdk.jmh.annotations.*;
+import tech.alexberbo.berboapp.util.DeviceAnalyzer;
+
+import java.util.concurrent.TimeUnit;
+
+import static nl.basjes.parse.useragent.UserAgent.*;
+
+/**
+ * Per user event cost of resolving the device: the old RequestUtils.getDevice built a new analyzer for every event,
+ * the DeviceAnalyzer component is built once and answers repeated User-Agent headers from its cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class DeviceAnalyzerBenchmark {
+    private static final String[] USER_AGENTS = {
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/118.0.0.0 Safari/537.36",
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.0 Safari/605.1.15",
+            "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.0 Mobile/15E148 Safari/604.1",
+            "Mozilla/5.0 (X11; Linux x86_64; rv:109.0) Gecko/20100101 Firefox/118.0"
+    };
+    private DeviceAnalyzer deviceAnalyzer;
+    private int next;
+
+    @Setup
+    public void setup() {
+        deviceAnalyzer = new DeviceAnalyzer(10000, true);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1, batchSize = 1)
+    @Measurement(iterations = 3, batchSize = 1)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String analyzerPerEvent() {
+        UserAgentAnalyzer analyzer = UserAgentAnalyzer.newBuilder().hideMatcherLoadStats().withCache(1000).build();
+        UserAgent agent = analyzer.parse(nextUserAgent());
+        return agent.getValue(OPERATING_SYSTEM_NAME) + " - " + agent.getValue(AGENT_NAME) + " - " + agent.getValue(DEVICE_NAME);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public String sharedAnalyzer() {
+        return deviceAnalyzer.getDevice(nextUserAgent());
+    }
+
+    private String nextUserAgent() {
+        return USER_AGENTS[next++ & 3];
+    }
+}
@@ -0,0 +1,69 @@
+package tech.alexberbo.berboapp.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.alexberbo.berboapp.dto.UserDTO;
+import tech.alexberbo.berboapp.dtomapper.UserDTOMapper;
+import tech.alexberbo.berboapp.model.*;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.UNAUTHORIZED;
+
+/**
+ * JSON of the HttpResponse body: a customers page with the user and the stats, written with a mapper configured like the one of Spring MVC,
+ * and the error response of the filter handlers, which build a new ObjectMapper for every response, against a shared one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpResponseSerializationBenchmark {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private HttpResponse pageResponse;
+    private HttpResponse errorResponse;
+
+    @Setup
+    public void setup() {
+        User user = User.builder().id(1L).firstName("Alex").lastName("Berbo").email("benchmark@alexberbo.tech").enabled(true).isNotLocked(true)
+                .createdAt(LocalDateTime.now()).imageUrl("https://alexberbo.tech/image.png").build();
+        Role role = Role.builder().id(4L).name("ROLE_SYSADMIN").permissions("READ:USER,READ:CUSTOMER,UPDATE:USER,UPDATE:CUSTOMER").build();
+        UserDTO userDTO = UserDTOMapper.fromUser(user, role);
+        List<Customer> customers = LongStream.rangeClosed(1, 50).mapToObj(this::customer).toList();
+        Stats stats = Stats.builder().totalCustomers(50).totalInvoices(120).totalBilled(13200).build();
+        pageResponse = HttpResponse.builder().timeStamp(LocalDateTime.now().toString()).status(OK).statusCode(OK.value())
+                .message("Customers retrieved").data(Map.of("user", userDTO, "page", customers, "stats", stats)).build();
+        errorResponse = HttpResponse.builder().timeStamp(LocalDateTime.now().toString()).status(UNAUTHORIZED).statusCode(UNAUTHORIZED.value())
+                .reason("You need to log in to access this resource").build();
+    }
+
+    private Customer customer(long id) {
+        return Customer.builder().id(id).name("Customer " + id).email("customer" + id + "@alexberbo.tech").phone("555" + id)
+                .address("Street " + id).status("ACTIVE").type("INDIVIDUAL").imageUrl("https://alexberbo.tech/customer.png").createdAt(new Date()).build();
+    }
+
+    @Benchmark
+    public byte[] pageResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(pageResponse);
+    }
+
+    @Benchmark
+    public byte[] errorResponseNewMapper() throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsBytes(errorResponse);
+    }
+
+    @Benchmark
+    public byte[] errorResponseSharedMapper() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(errorResponse);
+    }
+}
@@ -0,0 +1,85 @@
+package tech.alexberbo.berboapp.benchmark;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import tech.alexberbo.berboapp.model.Role;
+import tech.alexberbo.berboapp.model.User;
+import tech.alexberbo.berboapp.model.UserPrincipal;
+import tech.alexberbo.berboapp.provider.JWTProvider;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.stream;
+import static tech.alexberbo.berboapp.constant.security.SecurityConstants.ALEXBERBO;
+import static tech.alexberbo.berboapp.constant.security.SecurityConstants.AUTHORITIES;
+
+/**
+ * Compares the old AuthorizationFilter token path, where a new verifier was built and the token was verified
+ * three times (subject, expiration and authorities), with the new path where the shared verifier checks the token once.
+ * createAccessToken is the signing cost of every login and token refresh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTVerificationBenchmark {
+    private static final String SECRET = "supermegasecretcode";
+    private JWTProvider jwtProvider;
+    private MockHttpServletRequest request;
+    private UserPrincipal principal;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtProvider = new JWTProvider(null);
+        ReflectionTestUtils.setField(jwtProvider, "secret", SECRET);
+        jwtProvider.init();
+        request = new MockHttpServletRequest();
+        User user = User.builder().id(1L).email("benchmark@alexberbo.tech").build();
+        Role role = Role.builder().id(4L).name("ROLE_SYSADMIN")
+                .permissions("READ:USER,READ:CUSTOMER,CREATE:USER,CREATE:CUSTOMER,UPDATE:USER,UPDATE:CUSTOMER,DELETE:USER,DELETE:CUSTOMER")
+                .build();
+        principal = new UserPrincipal(user, role);
+        token = jwtProvider.createAccessToken(principal);
+    }
+
+    @Benchmark
+    public String createAccessToken() {
+        return jwtProvider.createAccessToken(principal);
+    }
+
+    @Benchmark
+    public void verifyThreeTimes(Blackhole blackhole) {
+        Long userId = Long.valueOf(legacyVerifier().verify(token).getSubject());
+        boolean valid = userId != null && !legacyVerifier().verify(token).getExpiresAt().before(new Date());
+        String[] authorities = legacyVerifier().verify(token).getClaim(AUTHORITIES).asArray(String.class);
+        List<GrantedAuthority> grantedAuthorities = stream(authorities).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+        blackhole.consume(valid);
+        blackhole.consume(grantedAuthorities);
+    }
+
+    @Benchmark
+    public void verifyOnce(Blackhole blackhole) {
+        DecodedJWT decodedToken = jwtProvider.verifyToken(token, request);
+        Long userId = jwtProvider.getSubject(decodedToken);
+        blackhole.consume(jwtProvider.isTokenValid(decodedToken, userId));
+        blackhole.consume(jwtProvider.getAuthorities(decodedToken));
+    }
+
+    private JWTVerifier legacyVerifier() {
+        return JWT.require(Algorithm.HMAC512(SECRET)).withIssuer(ALEXBERBO).build();
+    }
+}
@@ -0,0 +1,73 @@
+package tech.alexberbo.berboapp.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import tech.alexberbo.berboapp.profiling.ProfilingDataSource;
+import tech.alexberbo.berboapp.profiling.SqlProfiler;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the ProfilingDataSource proxies on a report sized read: 100000 rows of the customer columns, read with and without the proxies.
+ * The rows come from an in memory H2 table, so the difference is the proxy work and not the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProfilingBenchmark {
+    private static final String QUERY = "SELECT id, name, email, phone, address, status, type, created_at FROM customer";
+    private static final int ROWS = 100000;
+    private DataSource dataSource;
+    private DataSource profilingDataSource;
+    private Connection keepAlive;
+
+    @Setup
+    public void setup() throws SQLException {
+        dataSource = new SimpleDriverDataSource(new org.h2.Driver(), "jdbc:h2:mem:profiling;DB_CLOSE_DELAY=-1", "sa", "");
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("sqlProfiler", new SqlProfiler(new SimpleMeterRegistry(), 1000, 200, 0.1));
+        profilingDataSource = new ProfilingDataSource(dataSource, beans.getBeanProvider(SqlProfiler.class));
+        keepAlive = dataSource.getConnection();
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("CREATE TABLE customer (id BIGINT PRIMARY KEY, name VARCHAR(255), email VARCHAR(255), phone VARCHAR(255), " +
+                    "address VARCHAR(255), status VARCHAR(255), type VARCHAR(255), created_at TIMESTAMP)");
+            statement.execute("INSERT INTO customer SELECT X, CONCAT('Customer ', X), CONCAT('customer', X, '@alexberbo.tech'), CONCAT('555', X), " +
+                    "CONCAT('Street ', X), 'ACTIVE', 'INDIVIDUAL', CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Benchmark
+    public void plain(Blackhole blackhole) throws SQLException {
+        read(dataSource, blackhole);
+    }
+
+    @Benchmark
+    public void profiled(Blackhole blackhole) throws SQLException {
+        read(profilingDataSource, blackhole);
+    }
+
+    private static void read(DataSource dataSource, Blackhole blackhole) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(QUERY);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+                for (int column = 2; column <= 7; column++) blackhole.consume(resultSet.getString(column));
+                blackhole.consume(resultSet.getTimestamp(8));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package tech.alexberbo.berboapp.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tech.alexberbo.berboapp.model.Customer;
+import tech.alexberbo.berboapp.model.Invoice;
+import tech.alexberbo.berboapp.model.ServiceCustomer;
+import tech.alexberbo.berboapp.report.CustomerReport;
+import tech.alexberbo.berboapp.report.InvoiceReport;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole excel export of the customer and invoice reports, from the rows already read to the written file.
+ * The file goes to a null stream, so only the POI work and the temp file of the streaming workbook are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx512m")
+public class ReportBenchmark {
+    @Param({"10000", "100000"})
+    private int rows;
+    private List<Customer> customers;
+    private List<Invoice> invoices;
+
+    @Setup
+    public void setup() {
+        customers = new ArrayList<>(rows);
+        invoices = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            Customer customer = Customer.builder().id(id).name("Customer " + id).email("customer" + id + "@alexberbo.tech").phone("555" + id)
+                    .address("Street " + id).status("ACTIVE").type("INDIVIDUAL").createdAt(new Date()).build();
+            ServiceCustomer service = ServiceCustomer.builder().id(id).serviceCustomerNumber("S-" + id).name("Service " + id).price(100).fee(10).build();
+            customers.add(customer);
+            invoices.add(Invoice.builder().id(id).invoiceNumber("I-" + id).status("PAID").total(110).createdAt(new Date())
+                    .customer(customer).serviceCustomer(service).build());
+        }
+    }
+
+    @Benchmark
+    public void customerReport() {
+        try (CustomerReport report = new CustomerReport()) {
+            customers.forEach(report::addRow);
+            report.write(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public void invoiceReport() {
+        try (InvoiceReport report = new InvoiceReport()) {
+            invoices.forEach(report::addRow);
+            report.write(OutputStream.nullOutputStream());
+        }
+    }
+}
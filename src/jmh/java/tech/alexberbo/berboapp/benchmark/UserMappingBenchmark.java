@@ -0,0 +1,48 @@
+package tech.alexberbo.berboapp.benchmark;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+import tech.alexberbo.berboapp.dto.UserDTO;
+import tech.alexberbo.berboapp.dtomapper.UserDTOMapper;
+import tech.alexberbo.berboapp.mapper.UserMapper;
+import tech.alexberbo.berboapp.model.Role;
+import tech.alexberbo.berboapp.model.User;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User to UserDTO, done for nearly every response: UserDTOMapper copies the properties with BeanUtils (reflection),
+ * the MapStruct UserMapper calls the getters and setters directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMappingBenchmark {
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+    private User user;
+    private Role role;
+
+    @Setup
+    public void setup() {
+        user = User.builder().id(1L).firstName("Alex").lastName("Berbo").email("benchmark@alexberbo.tech").password("password")
+                .address("Street 1").phone("123456789").title("Developer").bio("Benchmark user").enabled(true).isNotLocked(true)
+                .createdAt(LocalDateTime.now()).imageUrl("https://alexberbo.tech/image.png").build();
+        role = Role.builder().id(4L).name("ROLE_SYSADMIN")
+                .permissions("READ:USER,READ:CUSTOMER,CREATE:USER,CREATE:CUSTOMER,UPDATE:USER,UPDATE:CUSTOMER,DELETE:USER,DELETE:CUSTOMER")
+                .build();
+    }
+
+    @Benchmark
+    public UserDTO beanUtils() {
+        return UserDTOMapper.fromUser(user, role);
+    }
+
+    @Benchmark
+    public UserDTO mapStruct() {
+        return userMapper.toDTO(user, role);
+    }
+}
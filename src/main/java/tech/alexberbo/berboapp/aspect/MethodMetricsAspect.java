@@ -0,0 +1,109 @@
+package tech.alexberbo.berboapp.aspect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every call to the repositories (the JDBC ones and the Spring Data ones), the services and the providers (JWT, passwords),
+ * without touching the classes: app.method with the tags layer, class, method and exception (none when the call worked).
+ * The streamed Excel reports are written after the controller returned, so their body is wrapped and timed as app.report.
+ * Only calls that go through the Spring proxy are timed, a method calling another method of the same class is one call.
+ * Percentile histograms are switched on in application.yml (management.metrics.distribution).
+ * The timers are kept in a map by their tags, so a call only looks up its timer instead of building and registering it again.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MethodMetricsAspect {
+    private static final String BASE_PACKAGE = "tech.alexberbo.berboapp.";
+    private static final String NONE = "none";
+    private final MeterRegistry registry;
+    private final Map<Class<?>, String> classNames = new ConcurrentHashMap<>();
+    private final Map<MethodKey, Timer> methodTimers = new ConcurrentHashMap<>();
+    private final Map<ReportKey, Timer> reportTimers = new ConcurrentHashMap<>();
+
+    @Around("execution(* tech.alexberbo.berboapp.repository..*.*(..)) || this(org.springframework.data.repository.Repository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("repository", joinPoint);
+    }
+
+    @Around("execution(* tech.alexberbo.berboapp.service..*.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("service", joinPoint);
+    }
+
+    @Around("execution(* tech.alexberbo.berboapp.provider..*.*(..))")
+    public Object timeProvider(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("provider", joinPoint);
+    }
+
+    @Around("execution(org.springframework.http.ResponseEntity<org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody> tech.alexberbo.berboapp.controller..*.*(..))")
+    public Object timeReport(ProceedingJoinPoint joinPoint) throws Throwable {
+        ResponseEntity<?> response = (ResponseEntity<?>) joinPoint.proceed();
+        if (response == null || !(response.getBody() instanceof StreamingResponseBody body)) return response;
+        String report = getClassName(joinPoint) + "." + joinPoint.getSignature().getName();
+        StreamingResponseBody timed = out -> {
+            Timer.Sample sample = Timer.start(registry);
+            String exception = NONE;
+            try {
+                body.writeTo(out);
+            } catch (Throwable e) {
+                exception = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                sample.stop(reportTimers.computeIfAbsent(new ReportKey(report, exception), key ->
+                        Timer.builder("app.report").description("Writing a streamed report")
+                                .tags("report", key.report(), "exception", key.exception()).register(registry)));
+            }
+        };
+        return new ResponseEntity<>(timed, response.getHeaders(), response.getStatusCode());
+    }
+
+    private Object time(String layer, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = NONE;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(methodTimers.computeIfAbsent(new MethodKey(layer, getClassName(joinPoint), joinPoint.getSignature().getName(), exception), key ->
+                    Timer.builder("app.method").description("Repository, service and provider calls")
+                            .tags("layer", key.layer(), "class", key.className(), "method", key.method(), "exception", key.exception())
+                            .register(registry)));
+        }
+    }
+
+    /**
+     * The class of the bean, for a Spring Data repository the repository interface of the app instead of SimpleJpaRepository.
+     */
+    private String getClassName(ProceedingJoinPoint joinPoint) {
+        return classNames.computeIfAbsent(joinPoint.getThis().getClass(), proxy -> {
+            Class<?> type = ClassUtils.getUserClass(joinPoint.getTarget());
+            if (!type.getName().startsWith(BASE_PACKAGE)) {
+                for (Class<?> contract : proxy.getInterfaces()) {
+                    if (contract.getName().startsWith(BASE_PACKAGE)) return contract.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        });
+    }
+
+    private record MethodKey(String layer, String className, String method, String exception) {
+    }
+
+    private record ReportKey(String report, String exception) {
+    }
+}
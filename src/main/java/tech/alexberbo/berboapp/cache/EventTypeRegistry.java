@@ -0,0 +1,60 @@
+package tech.alexberbo.berboapp.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import tech.alexberbo.berboapp.enumerator.EventType;
+
+import java.util.*;
+
+import static tech.alexberbo.berboapp.constant.query.EventQuery.SELECT_EVENTS_QUERY;
+
+/**
+ * The Events table is a fixed catalog seeded with the EventType values (V3__insert_events.sql),
+ * so it is read once when the app starts and the ids are kept here in both directions.
+ * The inserts bind the event_id directly and the reads get the type and the description from the enum, without joining Events.
+ * If the enum and the table don't have the same types the app doesn't start.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventTypeRegistry {
+    private final NamedParameterJdbcTemplate jdbc;
+    private final Map<EventType, Long> ids = new EnumMap<>(EventType.class);
+    private final Map<Long, EventType> types = new HashMap<>();
+
+    @PostConstruct
+    public void load() {
+        Set<String> unknown = new TreeSet<>();
+        jdbc.query(SELECT_EVENTS_QUERY, resultSet -> {
+            String type = resultSet.getString("type");
+            long id = resultSet.getLong("event_id");
+            try {
+                EventType eventType = EventType.valueOf(type);
+                ids.put(eventType, id);
+                types.put(id, eventType);
+                if (!eventType.getDescription().equals(resultSet.getString("description"))) {
+                    log.warn("Description of the event type {} in the Events table is different from the EventType enum", type);
+                }
+            } catch (IllegalArgumentException e) {
+                unknown.add(type);
+            }
+        });
+        Set<EventType> missing = EnumSet.allOf(EventType.class);
+        missing.removeAll(ids.keySet());
+        if (!missing.isEmpty() || !unknown.isEmpty()) {
+            throw new IllegalStateException("EventType enum and the Events table are different, missing in the table: " + missing + ", missing in the enum: " + unknown);
+        }
+        log.info("Loaded {} event types", ids.size());
+    }
+
+    public Long getId(EventType type) {
+        return ids.get(type);
+    }
+
+    public EventType getType(Long id) {
+        return types.get(id);
+    }
+}
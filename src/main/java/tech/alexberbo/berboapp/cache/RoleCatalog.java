@@ -0,0 +1,85 @@
+package tech.alexberbo.berboapp.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+import tech.alexberbo.berboapp.model.Role;
+import tech.alexberbo.berboapp.rowmapper.RoleRowMapper;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static tech.alexberbo.berboapp.constant.query.RoleQuery.SELECT_ROLES_QUERY;
+
+/**
+ * The Roles table has a handful of rows that almost never change, but all the roles are sent in most of the responses.
+ * So the roles are loaded once into an immutable snapshot, and the snapshot is replaced by refresh() when the roles are written.
+ * Every role has its authorities precomputed as an immutable list, the same permission is the same GrantedAuthority object in all the roles.
+ * Which role a user has is kept in a bounded map (cache.roles.user-roles-size), it has to be updated when the user role changes.
+ */
+@Component
+@Slf4j
+public class RoleCatalog {
+    private final NamedParameterJdbcTemplate jdbc;
+    private final Cache<Long, Long> userRoles;
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+
+    public RoleCatalog(NamedParameterJdbcTemplate jdbc, @Value("${cache.roles.user-roles-size:10000}") long userRolesSize) {
+        this.jdbc = jdbc;
+        this.userRoles = Caffeine.newBuilder().maximumSize(userRolesSize).build();
+    }
+
+    @PostConstruct
+    public void refresh() {
+        List<Role> roles = jdbc.query(SELECT_ROLES_QUERY, new RoleRowMapper());
+        Map<String, GrantedAuthority> interned = new HashMap<>();
+        roles.forEach(role -> role.setAuthorities(AuthorityUtils.commaSeparatedStringToAuthorityList(role.getPermissions()).stream()
+                .map(authority -> interned.computeIfAbsent(authority.getAuthority(), key -> authority))
+                .toList()));
+        this.snapshot = new Snapshot(roles);
+        log.info("Loaded {} roles", roles.size());
+    }
+
+    public List<Role> getRoles() {
+        return snapshot.roles;
+    }
+
+    public Role getRole(Long id) {
+        return snapshot.byId.get(id);
+    }
+
+    public Role getRole(String name) {
+        return snapshot.byName.get(name);
+    }
+
+    /**
+     * Role of the user, the loader is called only when the user is not in the map and has to return the role id.
+     */
+    public Role getRoleByUserId(Long userId, Function<Long, Long> loader) {
+        return getRole(userRoles.get(userId, loader));
+    }
+
+    public void setUserRole(Long userId, Long roleId) {
+        userRoles.put(userId, roleId);
+    }
+
+    private static class Snapshot {
+        private final List<Role> roles;
+        private final Map<Long, Role> byId = new HashMap<>();
+        private final Map<String, Role> byName = new HashMap<>();
+
+        private Snapshot(List<Role> roles) {
+            this.roles = List.copyOf(roles);
+            roles.forEach(role -> {
+                byId.put(role.getId(), role);
+                byName.put(role.getName(), role);
+            });
+        }
+    }
+}
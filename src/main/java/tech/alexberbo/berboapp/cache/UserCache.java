@@ -0,0 +1,97 @@
+package tech.alexberbo.berboapp.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tech.alexberbo.berboapp.dto.UserDTO;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of the UserDTO objects that the controllers put in almost every response.
+ * Users are stored by id, and the email index points to the id, so a user can be found by both keys.
+ * Every method in the UserService that changes the user data has to invalidate the user here.
+ * A user loaded by email is only stored when no invalidate ran during the load, so an older load can't put back a user
+ * that was just invalidated (loading by id is safe, the invalidate waits for the load of the same id).
+ * Hits, misses and evictions are published as the "users" cache metrics (cache.gets, cache.evictions) on the actuator.
+ */
+@Component
+@Slf4j
+public class UserCache {
+    private final StatsCounter stats = new ConcurrentStatsCounter();
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+    private final Cache<Long, UserDTO> users;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserCache(@Value("${cache.users.maximum-size:10000}") long maximumSize,
+                     @Value("${cache.users.ttl:300000}") long ttl,
+                     MeterRegistry registry) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttl))
+                .evictionListener((Long id, UserDTO user, RemovalCause cause) -> removeEmail(user, id))
+                .recordStats(() -> stats)
+                .build();
+        CaffeineCacheMetrics.monitor(registry, users, "users");
+    }
+
+    public UserDTO getById(Long id, Function<Long, UserDTO> loader) {
+        return users.get(id, key -> addEmail(loader.apply(key)));
+    }
+
+    public UserDTO getByEmail(String email, Function<String, UserDTO> loader) {
+        Long id = ids.get(key(email));
+        if (id != null) {
+            UserDTO user = users.getIfPresent(id);
+            if (user != null) return user;
+        } else {
+            stats.recordMisses(1);
+        }
+        long loadedAfter = invalidations.get();
+        UserDTO user = loader.apply(email);
+        users.asMap().compute(user.getId(), (key, cached) -> cached != null || invalidations.get() != loadedAfter ? cached : addEmail(user));
+        return user;
+    }
+
+    /**
+     * Id of a user that is in the cache, without loading anything, null when the user is not cached.
+     */
+    public Long getId(String email) {
+        return ids.get(key(email));
+    }
+
+    public void invalidate(Long id) {
+        invalidations.incrementAndGet();
+        UserDTO user = users.asMap().remove(id);
+        removeEmail(user, id);
+    }
+
+    public CacheStats stats() {
+        return users.stats();
+    }
+
+    private UserDTO addEmail(UserDTO user) {
+        ids.put(key(user.getEmail()), user.getId());
+        return user;
+    }
+
+    private void removeEmail(UserDTO user, Long id) {
+        if (user != null) ids.remove(key(user.getEmail()), id);
+    }
+
+    private String key(String email) {
+        return email.trim().toLowerCase();
+    }
+}
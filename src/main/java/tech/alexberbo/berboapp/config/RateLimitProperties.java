@@ -0,0 +1,53 @@
+package tech.alexberbo.berboapp.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Limits of the RateLimitFilter (rate-limit in application.yml). Every route can limit the callers by IP, by email or both,
+ * the email comes from the {email} path variable or from the "email" field of the JSON body.
+ * The IP is the address of the connection, X-Forwarded-For is only read when the connection comes from one of the trusted-proxies
+ * (addresses or CIDR ranges), and then the last address in it that isn't a trusted proxy is the client.
+ * The limits are validated when the app starts, a route with no capacity or no refill fails the startup.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private long maximumKeys = 100000;
+    private long idleTimeout = 900000;
+    private int maxBodySize = 16384;
+    private List<String> trustedProxies = new ArrayList<>();
+    @Valid
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+        private String method;
+        @NotBlank
+        private String pattern;
+        @Valid
+        private Limit perIp;
+        @Valid
+        private Limit perEmail;
+    }
+
+    /**
+     * A bucket of capacity requests that gets refill-per-minute requests back every minute.
+     */
+    @Data
+    public static class Limit {
+        @Positive
+        private int capacity;
+        @Positive
+        private double refillPerMinute;
+    }
+}
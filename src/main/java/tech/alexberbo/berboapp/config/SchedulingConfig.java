@@ -0,0 +1,13 @@
+package tech.alexberbo.berboapp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+    Turns on the @Scheduled jobs from the job package.
+    Every job has its own scheduler thread (spring.task.scheduling.pool.size), so the jobs don't wait for each other.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,6 +1,11 @@
 package tech.alexberbo.berboapp.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -12,10 +17,15 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import tech.alexberbo.berboapp.filter.AuthorizationFilter;
+import tech.alexberbo.berboapp.filter.RateLimitFilter;
+import tech.alexberbo.berboapp.filter.TimedFilter;
 import tech.alexberbo.berboapp.handler.CustomAccessDeniedHandler;
 import tech.alexberbo.berboapp.handler.CustomAuthenticationEntryPoint;
 
@@ -26,19 +36,29 @@ import static tech.alexberbo.berboapp.constant.security.SecurityConstants.PUBLIC
 /**
  * Custom security configuration, allowing certain urls to be permitted without authentication, making other
  * protected urls protected with our logic that is done with implementing the JWToken system, adding certain filters,
- * handlers and our custom userDetailService. Providing an authentication manager and setting the password encoder.
+ * handlers (the rate limit of the public auth endpoints runs before the token check) and our custom userDetailService. Providing an authentication manager and setting the password encoder,
+ * the provider rehashes the password on login when the work factor of the encoder was raised.
  * Enabling method security for easy management of authorities in the controller package and classes.
+ * Of the actuator only health is open everywhere, the metrics and prometheus endpoints are open only on the management port
+ * (management.server.port, which is not published) and denied when they are reached through any other port.
+ * The token and rate limit filters are wrapped in a TimedFilter, so their own time is in the app.filter metric.
  */
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 @RequiredArgsConstructor
 public class SecurityConfig {
-    private final BCryptPasswordEncoder encoder;
+    private final PasswordEncoder encoder;
     private final CustomAccessDeniedHandler customAccessDeniedHandler;
     private final CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
     private final AuthorizationFilter authorizationFilter;
+    private final RateLimitFilter rateLimitFilter;
+    private final MeterRegistry registry;
+    @Value("${management.server.port:-1}")
+    private int managementPort;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -46,20 +66,29 @@ public class SecurityConfig {
         http.cors(withDefaults());
         http.sessionManagement(sessionManagement -> sessionManagement.sessionCreationPolicy(STATELESS));
         http.authorizeHttpRequests(matcher -> matcher.requestMatchers(PUBLIC_URLS).permitAll());
+        http.authorizeHttpRequests(matcher -> matcher.requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll());
+        http.authorizeHttpRequests(matcher -> matcher.requestMatchers(new AndRequestMatcher(EndpointRequest.toAnyEndpoint(), managementPort())).permitAll());
+        http.authorizeHttpRequests(matcher -> matcher.requestMatchers(EndpointRequest.toAnyEndpoint()).denyAll());
         http.authorizeHttpRequests(matcher -> matcher.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll());
         http.authorizeHttpRequests(matcher -> matcher.requestMatchers(HttpMethod.DELETE, "/user/delete/**").hasAnyAuthority("DELETE:USER"));
         http.authorizeHttpRequests(matcher -> matcher.requestMatchers(HttpMethod.DELETE, "/customer/delete/**").hasAnyAuthority("DELETE:CUSTOMER"));
         http.exceptionHandling(e -> e.accessDeniedHandler(customAccessDeniedHandler).authenticationEntryPoint(customAuthenticationEntryPoint));
         http.authorizeHttpRequests(matcher -> matcher.anyRequest().authenticated());
-        http.addFilterBefore(authorizationFilter, UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(new TimedFilter(authorizationFilter, "authorization", registry), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(new TimedFilter(rateLimitFilter, "rate-limit", registry), TimedFilter.class);
         return http.build();
     }
 
+    private RequestMatcher managementPort() {
+        return request -> managementPort > 0 && request.getLocalPort() == managementPort;
+    }
+
     @Bean
     public AuthenticationManager authenticationManager() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(encoder);
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return new ProviderManager(authProvider);
     }
 }
@@ -0,0 +1,33 @@
+package tech.alexberbo.berboapp.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tech.alexberbo.berboapp.profiling.ProfilingDataSource;
+import tech.alexberbo.berboapp.profiling.SqlProfiler;
+
+import javax.sql.DataSource;
+
+/**
+    Puts the ProfilingDataSource in front of the connection pool, so the JdbcTemplate, Hibernate and Flyway statements are all profiled.
+    The profiler is looked up on the first connection, so the MeterRegistry isn't created while the post processors are.
+    sql-profiling.enabled: false turns it off.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sql-profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlProfilingConfig {
+    @Bean
+    public static BeanPostProcessor profilingDataSourcePostProcessor(ObjectProvider<SqlProfiler> profiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProfilingDataSource)) {
+                    return new ProfilingDataSource(dataSource, profiler);
+                }
+                return bean;
+            }
+        };
+    }
+}
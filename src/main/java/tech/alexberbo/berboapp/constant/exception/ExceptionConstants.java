@@ -10,4 +10,5 @@ public interface ExceptionConstants {
     String RESET_PASSWORD_URL_EXPIRED = "Password recovery code is expired, please reset password again!";
     String BAD_CREDENTIALS = "Your username or password are incorrect, please try again!";
     String CONSTRAINT = "Constraint happened";
+    String PASSWORD_HASHING_BUSY = "Too many logins right now, please try again in a moment!";
 }
@@ -0,0 +1,8 @@
+package tech.alexberbo.berboapp.constant.query;
+
+/**
+    Native queries of the CustomerRepository
+ */
+public interface CustomerQuery {
+    String SEARCH_CUSTOMERS_QUERY = "SELECT id, name, email, type, status, address, phone, image_url AS imageUrl, created_at AS createdAt FROM customer WHERE MATCH(name, email, phone) AGAINST (:term) ORDER BY MATCH(name, email, phone) AGAINST (:term) DESC, id DESC";
+}
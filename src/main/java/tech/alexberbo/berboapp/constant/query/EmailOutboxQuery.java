@@ -0,0 +1,10 @@
+package tech.alexberbo.berboapp.constant.query;
+
+public interface EmailOutboxQuery {
+    String INSERT_OUTBOX_EMAIL_QUERY = "INSERT INTO EmailOutbox (recipient, subject, body) VALUES (:recipient, :subject, :body)";
+    String SELECT_DUE_OUTBOX_EMAILS_QUERY = "SELECT id, recipient, subject, body, attempts, created_at FROM EmailOutbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= NOW() ORDER BY next_attempt_at LIMIT :size FOR UPDATE SKIP LOCKED";
+    String CLAIM_OUTBOX_EMAILS_QUERY = "UPDATE EmailOutbox SET status = 'SENDING', attempts = attempts + 1, next_attempt_at = NOW() + INTERVAL :lease SECOND WHERE id IN (:ids)";
+    String UPDATE_OUTBOX_EMAILS_SENT_QUERY = "UPDATE EmailOutbox SET status = 'SENT', sent_at = NOW(), last_error = NULL WHERE id IN (:ids)";
+    String UPDATE_OUTBOX_EMAIL_RETRY_QUERY = "UPDATE EmailOutbox SET status = 'PENDING', next_attempt_at = NOW() + INTERVAL :delay SECOND, last_error = :error WHERE id = :id";
+    String UPDATE_OUTBOX_EMAIL_FAILED_QUERY = "UPDATE EmailOutbox SET status = 'FAILED', last_error = :error WHERE id = :id";
+}
@@ -0,0 +1,10 @@
+package tech.alexberbo.berboapp.constant.query;
+
+/**
+    Keyset paged queries for the excel reports, every page starts after the last id of the previous one,
+    so MySQL never has to skip the rows that were already exported.
+ */
+public interface ReportQuery {
+    String SELECT_CUSTOMERS_REPORT_QUERY = "SELECT id, name, email, phone, address, status, type, created_at FROM customer WHERE id > :lastId ORDER BY id LIMIT :size";
+    String SELECT_INVOICES_REPORT_QUERY = "SELECT i.id, i.invoice_number, i.total, i.status, i.created_at, s.id AS service_customer_id, s.service_customer_number, s.name AS service_name, c.id AS customer_id, c.name AS customer_name FROM invoice i JOIN service_customer s ON s.id = i.service_customer_id JOIN customer c ON c.id = i.customer_id WHERE i.id > :lastId ORDER BY i.id LIMIT :size";
+}
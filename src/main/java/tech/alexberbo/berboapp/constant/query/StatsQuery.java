@@ -1,5 +1,9 @@
 package tech.alexberbo.berboapp.constant.query;
 
 public interface StatsQuery {
-    String STATS_QUERY = "SELECT c.total_customers, i.total_invoices, inv.total_billed FROM (SELECT COUNT(*) total_customers FROM customer) c, (SELECT COUNT(*) total_invoices FROM invoice) i, (SELECT ROUND(SUM(total)) total_billed FROM invoice) inv";
+    String RECOUNT_STATS_QUERY = "SELECT (SELECT COUNT(*) FROM customer) total_customers, (SELECT COUNT(*) FROM invoice) total_invoices, (SELECT COALESCE(SUM(total), 0) FROM invoice) total_billed";
+    String SELECT_DASHBOARD_STATS_QUERY = "SELECT total_customers, total_invoices, ROUND(total_billed) total_billed FROM DashboardStats WHERE id = 1";
+    String SELECT_DASHBOARD_COUNTERS_QUERY = "SELECT total_customers, total_invoices, total_billed FROM DashboardStats WHERE id = 1";
+    String INCREMENT_DASHBOARD_STATS_QUERY = "UPDATE DashboardStats SET total_customers = total_customers + :customers, total_invoices = total_invoices + :invoices, total_billed = total_billed + :billed WHERE id = 1";
+    String RECONCILE_DASHBOARD_STATS_QUERY = "UPDATE DashboardStats SET total_customers = total_customers + :customers, total_invoices = total_invoices + :invoices, total_billed = total_billed + :billed, reconciled_at = NOW() WHERE id = 1";
 }
@@ -0,0 +1,7 @@
+package tech.alexberbo.berboapp.constant.query;
+
+public interface SweeperQuery {
+    String DELETE_EXPIRED_TWO_FACTOR_CODES_QUERY = "DELETE FROM TwoFactorVerifications WHERE expiration_date < NOW() ORDER BY expiration_date LIMIT :limit";
+    String DELETE_EXPIRED_PASSWORD_RESET_URLS_QUERY = "DELETE FROM PasswordResetVerifications WHERE expiration_date < NOW() ORDER BY expiration_date LIMIT :limit";
+    String DELETE_EXPIRED_ACCOUNT_URLS_QUERY = "DELETE FROM AccountVerifications WHERE expiration_date < NOW() ORDER BY expiration_date LIMIT :limit";
+}
@@ -0,0 +1,9 @@
+package tech.alexberbo.berboapp.constant.query;
+
+public interface VerificationCodeQuery {
+    String UPSERT_VERIFICATION_CODE_QUERY = "INSERT INTO TwoFactorVerifications (user_id, code, expiration_date) VALUES (:userId, :code, NOW() + INTERVAL :ttl SECOND) ON DUPLICATE KEY UPDATE code = VALUES(code), expiration_date = VALUES(expiration_date), attempts = 0";
+    String DELETE_VALID_VERIFICATION_CODE_QUERY = "DELETE FROM TwoFactorVerifications WHERE user_id = :userId AND code = :code AND expiration_date >= NOW()";
+    String SELECT_VERIFICATION_CODE_FOR_UPDATE_QUERY = "SELECT expiration_date < NOW() expired, attempts FROM TwoFactorVerifications WHERE user_id = :userId FOR UPDATE";
+    String INCREMENT_VERIFICATION_CODE_ATTEMPTS_QUERY = "UPDATE TwoFactorVerifications SET attempts = attempts + 1 WHERE user_id = :userId";
+    String DELETE_VERIFICATION_CODE_QUERY = "DELETE FROM TwoFactorVerifications WHERE user_id = :userId";
+}
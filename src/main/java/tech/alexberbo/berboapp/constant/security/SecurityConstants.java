@@ -8,4 +8,8 @@ public interface SecurityConstants {
     long TOKEN_EXPIRATION_DATE = 1200000;
     long REFRESH_TOKEN_EXPIRATION_DATE = 1500000;
     String AUTHORITIES = "authorities";
+    String EMAIL = "email";
+    String FIRST_NAME = "first_name";
+    String LAST_NAME = "last_name";
+    String ROLE_NAME = "role";
 }
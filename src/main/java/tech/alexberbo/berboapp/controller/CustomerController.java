@@ -2,13 +2,13 @@ package tech.alexberbo.berboapp.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tech.alexberbo.berboapp.dto.UserDTO;
 import tech.alexberbo.berboapp.exception.ExceptionHandling;
 import tech.alexberbo.berboapp.model.Customer;
@@ -16,10 +16,9 @@ import tech.alexberbo.berboapp.model.HttpResponse;
 import tech.alexberbo.berboapp.report.CustomerReport;
 import tech.alexberbo.berboapp.service.CustomerService;
 import tech.alexberbo.berboapp.service.UserService;
+import tech.alexberbo.berboapp.util.ResponseComposer;
 
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -35,6 +34,8 @@ import static org.springframework.http.HttpStatus.OK;
 public class CustomerController extends ExceptionHandling {
     private final CustomerService customerService;
     private final UserService userService;
+    private final ResponseComposer composer;
+    private static final int MAX_PAGE_SIZE = 100;
 
     @GetMapping("/list")
     ResponseEntity<HttpResponse> getCustomers(@AuthenticationPrincipal UserDTO user,
@@ -44,9 +45,33 @@ public class CustomerController extends ExceptionHandling {
                 HttpResponse.builder()
                         .status(OK)
                         .statusCode(OK.value())
-                        .data(Map.of("user", userService.getUserById(user.getId()),
-                                "customer", customerService.getCustomers(page.orElse(0), size.orElse(10)),
-                                "stats", customerService.getStats()))
+                        .data(composer.compose()
+                                .with("user", () -> userService.getUserById(user.getId()))
+                                .with("customer", () -> customerService.getCustomers(page.orElse(0), size.orElse(10)))
+                                .with("stats", customerService::getStats)
+                                .join())
+                        .message("Customers retrieved!")
+                        .timeStamp(now().toString())
+                        .build()
+        );
+    }
+
+    /**
+     * Cursor listing, the "after" parameter is the nextCursor of the previous page. The offset /list endpoint stays for the old clients.
+     */
+    @GetMapping("/list/cursor")
+    ResponseEntity<HttpResponse> getCustomersByCursor(@AuthenticationPrincipal UserDTO user,
+                                                      @RequestParam Optional<String> after,
+                                                      @RequestParam Optional<Integer> size) {
+        return ResponseEntity.ok().body(
+                HttpResponse.builder()
+                        .status(OK)
+                        .statusCode(OK.value())
+                        .data(composer.compose()
+                                .with("user", () -> userService.getUserById(user.getId()))
+                                .with("customer", () -> customerService.getCustomers(after.orElse(null), Math.min(Math.max(size.orElse(10), 1), MAX_PAGE_SIZE)))
+                                .with("stats", customerService::getStats)
+                                .join())
                         .message("Customers retrieved!")
                         .timeStamp(now().toString())
                         .build()
@@ -90,18 +115,24 @@ public class CustomerController extends ExceptionHandling {
         );
     }
 
+    /**
+     * The report is written straight into the response while the customers are read page by page.
+     */
     @GetMapping("/download/report")
-    ResponseEntity<Resource> downloadReport() {
-        List<Customer> customers = new ArrayList<>();
-        customerService.getCustomers().iterator().forEachRemaining(customers::add);
-        CustomerReport report = new CustomerReport(customers);
+    ResponseEntity<StreamingResponseBody> downloadReport() {
+        StreamingResponseBody report = out -> {
+            try (CustomerReport customerReport = new CustomerReport()) {
+                customerService.streamCustomers(customerReport::addRow);
+                customerReport.write(out);
+            }
+        };
         HttpHeaders headers = new HttpHeaders();
         headers.add("File-Name", "customer-report.xlsx");
         headers.add(CONTENT_DISPOSITION, "attachment;File-name=customer-report.xlsx");
         return ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType("application/vnd.ms-excel"))
                 .headers(headers)
-                .body(report.export());
+                .body(report);
     }
 
     private HttpResponse createResponse(HttpStatus status, UserDTO user, Object customer, String message) {
@@ -1,12 +1,12 @@
 package tech.alexberbo.berboapp.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tech.alexberbo.berboapp.dto.UserDTO;
 import tech.alexberbo.berboapp.exception.ExceptionHandling;
 import tech.alexberbo.berboapp.model.HttpResponse;
@@ -16,9 +16,9 @@ import tech.alexberbo.berboapp.service.CustomerService;
 import tech.alexberbo.berboapp.service.InvoiceService;
 import tech.alexberbo.berboapp.service.ServiceCustomerService;
 import tech.alexberbo.berboapp.service.UserService;
+import tech.alexberbo.berboapp.util.ResponseComposer;
 
 import java.net.URI;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -34,6 +34,8 @@ public class InvoiceController extends ExceptionHandling {
     private final UserService userService;
     private final CustomerService customerService;
     private final ServiceCustomerService serviceCustomerService;
+    private final ResponseComposer composer;
+    private static final int MAX_PAGE_SIZE = 100;
 
     @PostMapping("/create")
     ResponseEntity<HttpResponse> createInvoice(@AuthenticationPrincipal UserDTO user, @RequestBody Invoice invoice) {
@@ -63,15 +65,34 @@ public class InvoiceController extends ExceptionHandling {
         );
     }
 
+    /**
+     * Cursor listing of the invoices, the "after" parameter is the nextCursor of the previous page.
+     */
+    @GetMapping(value = "/list/cursor")
+    ResponseEntity<HttpResponse> getInvoicesByCursor(@AuthenticationPrincipal UserDTO user, @RequestParam Optional<String> after, @RequestParam Optional<Integer> size) {
+        return ResponseEntity.ok().body(
+                HttpResponse.builder()
+                        .status(OK)
+                        .statusCode(OK.value())
+                        .data(Map.of("user", userService.getUserById(user.getId()),
+                                "invoices", invoiceService.getInvoices(after.orElse(null), Math.min(Math.max(size.orElse(10), 1), MAX_PAGE_SIZE))))
+                        .message("Invoices retrieved!")
+                        .timeStamp(now().toString())
+                        .build()
+        );
+    }
+
     @GetMapping("/new")
     ResponseEntity<HttpResponse> newInvoice(@AuthenticationPrincipal UserDTO user) {
         return ResponseEntity.ok().body(
                 HttpResponse.builder()
                         .status(OK)
                         .statusCode(OK.value())
-                        .data(Map.of("user", userService.getUserById(user.getId()),
-                                "customers", customerService.getCustomers(),
-                                "services", serviceCustomerService.getServices()))
+                        .data(composer.compose()
+                                .with("user", () -> userService.getUserById(user.getId()))
+                                .with("customers", customerService::getCustomers)
+                                .with("services", serviceCustomerService::getServices)
+                                .join())
                         .message("Add new invoice!")
                         .timeStamp(now().toString())
                         .build()
@@ -104,9 +125,11 @@ public class InvoiceController extends ExceptionHandling {
                 HttpResponse.builder()
                         .status(OK)
                         .statusCode(OK.value())
-                        .data(Map.of("user", userService.getUserById(user.getId()),
-                                "customers", customerService.getCustomers(),
-                                "services", serviceCustomerService.getServices()))
+                        .data(composer.compose()
+                                .with("user", () -> userService.getUserById(user.getId()))
+                                .with("customers", customerService::getCustomers)
+                                .with("services", serviceCustomerService::getServices)
+                                .join())
                         .message(String.format("Invoice added to the Customer with id: %s", customerId))
                         .timeStamp(now().toString())
                         .build()
@@ -114,15 +137,19 @@ public class InvoiceController extends ExceptionHandling {
     }
 
     @GetMapping("/download/report")
-    ResponseEntity<Resource> getInvoice() {
-        List<Invoice> invoices = invoiceService.getAll();
-        InvoiceReport report = new InvoiceReport(invoices);
+    ResponseEntity<StreamingResponseBody> getInvoice() {
+        StreamingResponseBody report = out -> {
+            try (InvoiceReport invoiceReport = new InvoiceReport()) {
+                invoiceService.streamInvoices(invoiceReport::addRow);
+                invoiceReport.write(out);
+            }
+        };
         HttpHeaders headers = new HttpHeaders();
         headers.add("File-name", "invoice-report.xlsx");
         headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment;File-name=invoice-report.xlsx");
         return ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType("application/vnd.ms-excel"))
                 .headers(headers)
-                .body(report.export());
+                .body(report);
     }
 }
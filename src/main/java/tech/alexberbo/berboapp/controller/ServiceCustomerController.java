@@ -28,6 +28,7 @@ import static org.springframework.http.HttpStatus.OK;
 public class ServiceCustomerController extends ExceptionHandling {
     private final ServiceCustomerService serviceCustomerService;
     private final UserService userService;
+    private static final int MAX_PAGE_SIZE = 100;
 
     @GetMapping("/list")
     public ResponseEntity<HttpResponse> getServices(@AuthenticationPrincipal UserDTO user,
@@ -45,6 +46,25 @@ public class ServiceCustomerController extends ExceptionHandling {
         );
     }
 
+    /**
+     * Cursor listing of the services, the "after" parameter is the nextCursor of the previous page.
+     */
+    @GetMapping("/list/cursor")
+    public ResponseEntity<HttpResponse> getServicesByCursor(@AuthenticationPrincipal UserDTO user,
+                                                            @RequestParam Optional<String> after,
+                                                            @RequestParam Optional<Integer> size) {
+        return ResponseEntity.ok().body(
+                HttpResponse.builder()
+                        .status(OK)
+                        .statusCode(OK.value())
+                        .message("Services retrieved!")
+                        .data(of("user", userService.getUserByEmail(user.getEmail()),
+                                "services", serviceCustomerService.services(after.orElse(null), Math.min(Math.max(size.orElse(10), 1), MAX_PAGE_SIZE))))
+                        .timeStamp(LocalTime.now().toString())
+                        .build()
+        );
+    }
+
     @GetMapping("/new")
     public ResponseEntity<HttpResponse> newService(@AuthenticationPrincipal UserDTO user) {
         return ResponseEntity.ok().body(
@@ -2,7 +2,10 @@ package tech.alexberbo.berboapp.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -16,16 +19,16 @@ import tech.alexberbo.berboapp.model.HttpResponse;
 import tech.alexberbo.berboapp.service.EventService;
 import tech.alexberbo.berboapp.service.RoleService;
 import tech.alexberbo.berboapp.service.UserService;
+import tech.alexberbo.berboapp.util.ImageStorage;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static java.time.LocalDateTime.now;
 import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.MediaType.IMAGE_PNG_VALUE;
 import static tech.alexberbo.berboapp.enumerator.EventType.*;
+import static tech.alexberbo.berboapp.util.ImageProcessor.THUMBNAIL_NAME;
 import static tech.alexberbo.berboapp.util.UserUtil.getAuthenticatedUser;
 
 @RestController
@@ -37,6 +40,9 @@ public class UpdateUserController extends ExceptionHandling {
     private final UserService userService;
     private final EventService eventService;
     private final ApplicationEventPublisher publisher;
+    private final ImageStorage imageStorage;
+    @Value("${image.cache-max-age:300}")
+    private long imageMaxAge;
 
     /**
      * Here the user is being updated and its data changed when the user sends a request for it
@@ -131,8 +137,28 @@ public class UpdateUserController extends ExceptionHandling {
         );
     }
 
+    /**
+     * The image is streamed from the file, not loaded on the heap. Spring answers the Range requests with the parts of the file (206)
+     * and the requests with a matching If-None-Match or If-Modified-Since with 304, using the ETag and the modified time set here.
+     */
     @GetMapping(value = "/image/{fileName}", produces = IMAGE_PNG_VALUE)
-    public byte[] getImage(@PathVariable("fileName") String fileName) throws IOException {
-        return Files.readAllBytes(Paths.get(System.getProperty("user.home") + ("/berbogram/images/"+ fileName)));
+    public ResponseEntity<Resource> getImage(@PathVariable("fileName") String fileName) {
+        return imageStorage.getImage(fileName)
+                .map(image -> ResponseEntity.ok()
+                        .eTag(image.etag())
+                        .lastModified(image.lastModified())
+                        .cacheControl(getCacheControl(fileName))
+                        .body(image.resource()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * A thumbnail name is the hash of its content, so the thumbnail never changes and the browser can keep it.
+     * The old images named by email are replaced in place, they are revalidated after image.cache-max-age seconds.
+     */
+    private CacheControl getCacheControl(String fileName) {
+        return THUMBNAIL_NAME.matcher(fileName).matches()
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.maxAge(imageMaxAge, TimeUnit.SECONDS).cachePublic().mustRevalidate();
     }
 }
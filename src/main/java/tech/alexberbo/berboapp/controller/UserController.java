@@ -1,5 +1,6 @@
 package tech.alexberbo.berboapp.controller;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +20,7 @@ import tech.alexberbo.berboapp.service.AuthService;
 import tech.alexberbo.berboapp.service.EventService;
 import tech.alexberbo.berboapp.service.RoleService;
 import tech.alexberbo.berboapp.service.UserService;
+import tech.alexberbo.berboapp.util.ResponseComposer;
 
 import java.net.URI;
 import java.util.Map;
@@ -45,6 +47,7 @@ public class UserController extends ExceptionHandling {
     private final EventService eventService;
     private final JWTProvider jwtProvider;
     private final RoleService roleService;
+    private final ResponseComposer composer;
 
     /**
      * Login method, this method will receive email and password from the user,
@@ -83,7 +86,7 @@ public class UserController extends ExceptionHandling {
      */
     @GetMapping(path = "/profile")
     public ResponseEntity<HttpResponse> profile(Authentication authentication) {
-        UserDTO user = userService.getUserByEmail(getAuthenticatedUser(authentication).getEmail());
+        UserDTO authenticatedUser = getAuthenticatedUser(authentication);
         return ResponseEntity.ok().body(
                 HttpResponse.builder()
                         .status(OK)
@@ -92,9 +95,11 @@ public class UserController extends ExceptionHandling {
                         .reason(OK.getReasonPhrase())
                         .message("Profile Retrieved")
                         .developerMessage("You made it bro!")
-                        .data(Map.of("user", user,
-                                "events", eventService.getUserEventsByUserId(user.getId()),
-                                "roles", roleService.getAllRoles()))
+                        .data(composer.compose()
+                                .with("user", () -> userService.getUserByEmail(authenticatedUser.getEmail()))
+                                .with("events", () -> eventService.getUserEventsByUserId(authenticatedUser.getId()))
+                                .with("roles", roleService::getAllRoles)
+                                .join())
                         .build());
     }
 
@@ -104,9 +109,10 @@ public class UserController extends ExceptionHandling {
      */
     @GetMapping(path = "/refresh/token")
     public ResponseEntity<HttpResponse> refreshToken(HttpServletRequest request) {
-        if (isHeaderAndTokenValid(request)) {
-            String token = request.getHeader(AUTHORIZATION).substring(TOKEN_PREFIX.length());
-            UserDTO user = userService.getUserById(jwtProvider.getSubject(token, request));
+        String token = request.getHeader(AUTHORIZATION).substring(TOKEN_PREFIX.length());
+        DecodedJWT decodedToken = jwtProvider.verifyToken(token, request);
+        if (isHeaderAndTokenValid(request, decodedToken)) {
+            UserDTO user = userService.getUserById(jwtProvider.getSubject(decodedToken));
             return ResponseEntity.ok().body(
                     HttpResponse.builder()
                             .status(OK)
@@ -135,12 +141,11 @@ public class UserController extends ExceptionHandling {
     /**
      * Checks to see if the authorization header is present or not, and if the token in the authorization header is valid
      */
-    private boolean isHeaderAndTokenValid(HttpServletRequest request) {
-        String token = request.getHeader(AUTHORIZATION).substring(TOKEN_PREFIX.length());
-        Long userId = jwtProvider.getSubject(token, request);
+    private boolean isHeaderAndTokenValid(HttpServletRequest request, DecodedJWT decodedToken) {
+        Long userId = jwtProvider.getSubject(decodedToken);
         return request.getHeader(AUTHORIZATION) != null
                 && request.getHeader(AUTHORIZATION).startsWith(TOKEN_PREFIX)
-                && jwtProvider.isTokenValid(token, userId);
+                && jwtProvider.isTokenValid(decodedToken, userId);
     }
 
     /**
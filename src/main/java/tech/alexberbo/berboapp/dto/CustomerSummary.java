@@ -0,0 +1,18 @@
+package tech.alexberbo.berboapp.dto;
+
+import java.util.Date;
+
+/**
+    Customer without the invoices, Spring Data selects only these columns for the customer lists and the search.
+ */
+public interface CustomerSummary {
+    Long getId();
+    String getName();
+    String getEmail();
+    String getType();
+    String getStatus();
+    String getAddress();
+    String getPhone();
+    String getImageUrl();
+    Date getCreatedAt();
+}
@@ -0,0 +1,15 @@
+package tech.alexberbo.berboapp.dto;
+
+import java.util.Date;
+
+/**
+    Invoice without its customer and service, used by the invoice cursor so the associations are not loaded for every invoice of the page.
+ */
+public interface InvoiceSummary {
+    Long getId();
+    String getInvoiceNumber();
+    String getServiceName();
+    String getStatus();
+    double getTotal();
+    Date getCreatedAt();
+}
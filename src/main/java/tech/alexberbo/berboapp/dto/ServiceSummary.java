@@ -0,0 +1,12 @@
+package tech.alexberbo.berboapp.dto;
+
+/**
+    Service without its invoice, used by the service lists so the one to one invoice is not loaded for every service.
+ */
+public interface ServiceSummary {
+    Long getId();
+    String getServiceCustomerNumber();
+    String getName();
+    double getPrice();
+    double getFee();
+}
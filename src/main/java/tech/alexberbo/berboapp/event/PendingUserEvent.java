@@ -0,0 +1,29 @@
+package tech.alexberbo.berboapp.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tech.alexberbo.berboapp.enumerator.EventType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user event waiting in the UserEventWriter queue.
+ * Everything that needs the request (email, User-Agent header, ip address, time) is captured in the request thread,
+ * the user id, event id and device are filled in by the writer thread right before the batch insert.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PendingUserEvent {
+    private String email;
+    private EventType type;
+    private String userAgent;
+    private String ipAddress;
+    private LocalDateTime createdAt;
+    private Long userId;
+    private Long eventId;
+    private String device;
+}
@@ -0,0 +1,218 @@
+package tech.alexberbo.berboapp.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import tech.alexberbo.berboapp.cache.EventTypeRegistry;
+import tech.alexberbo.berboapp.cache.UserCache;
+import tech.alexberbo.berboapp.enumerator.EventType;
+import tech.alexberbo.berboapp.repository.EventRepository;
+import tech.alexberbo.berboapp.util.DeviceAnalyzer;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.LocalDateTime.now;
+
+/**
+ * Writes the user events (UserEvents table) in the background instead of in the request thread.
+ * The listener only puts the event in a bounded queue, and one writer thread takes the events out and inserts them
+ * with one JDBC batch when event-writer.batch-size events are waiting or event-writer.flush-interval ms have passed.
+ * User ids come from the UserCache email index (the user has just been loaded by the login or update), the missing ones
+ * are loaded with one query per batch, and the event ids come from the EventTypeRegistry.
+ * <p>
+ * Overflow policy: when the queue is full (event-writer.capacity) the event is written synchronously in the caller thread,
+ * so a slow database slows down the requests instead of losing audit records. The same happens after shutdown started.
+ * Events of an email that doesn't belong to any user are dropped, just like the old insert couldn't store them.
+ * <p>
+ * A batch that fails for a transient reason (deadlock, lost connection, database down) is written again after event-writer.retry-delay ms,
+ * the delay doubles up to event-writer.max-retry-delay, until it is stored. Meanwhile the queue fills up and the events go the synchronous way.
+ * Any other failure (a user deleted in the meantime, an event that can't be resolved) is not retried, the events are written one by one
+ * and only the ones that fail are dropped, so one bad event never blocks the ones behind it. Nothing stops the writer thread but the shutdown.
+ * <p>
+ * Metrics: user.events.queue (queue depth), user.events.flush (batch insert latency), user.events.overflow
+ * (events written in the caller thread), user.events.retried (failed batch writes) and user.events.dropped (events that can't be stored).
+ * On shutdown the queue is drained before the datasource is closed.
+ */
+@Component
+@Slf4j
+public class UserEventWriter {
+    private final EventRepository eventRepository;
+    private final UserCache userCache;
+    private final EventTypeRegistry eventTypeRegistry;
+    private final DeviceAnalyzer deviceAnalyzer;
+    private final BlockingQueue<PendingUserEvent> queue;
+    private final int batchSize;
+    private final long flushInterval;
+    private final long shutdownTimeout;
+    private final long retryDelay;
+    private final long maxRetryDelay;
+    private final Timer flushTimer;
+    private final Counter overflow;
+    private final Counter dropped;
+    private final Counter retried;
+    private final Thread writer = new Thread(this::run, "user-event-writer");
+    private volatile boolean running = true;
+
+    public UserEventWriter(EventRepository eventRepository, UserCache userCache, EventTypeRegistry eventTypeRegistry, DeviceAnalyzer deviceAnalyzer, MeterRegistry registry,
+                           @Value("${event-writer.capacity:10000}") int capacity,
+                           @Value("${event-writer.batch-size:100}") int batchSize,
+                           @Value("${event-writer.flush-interval:1000}") long flushInterval,
+                           @Value("${event-writer.shutdown-timeout:10000}") long shutdownTimeout,
+                           @Value("${event-writer.retry-delay:1000}") long retryDelay,
+                           @Value("${event-writer.max-retry-delay:30000}") long maxRetryDelay) {
+        this.eventRepository = eventRepository;
+        this.userCache = userCache;
+        this.eventTypeRegistry = eventTypeRegistry;
+        this.deviceAnalyzer = deviceAnalyzer;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.shutdownTimeout = shutdownTimeout;
+        this.retryDelay = retryDelay;
+        this.maxRetryDelay = maxRetryDelay;
+        this.flushTimer = Timer.builder("user.events.flush").description("Batch insert of the user events").register(registry);
+        this.overflow = Counter.builder("user.events.overflow").description("User events written in the caller thread").register(registry);
+        this.dropped = Counter.builder("user.events.dropped").description("User events that couldn't be stored").register(registry);
+        this.retried = Counter.builder("user.events.retried").description("Failed batch writes of user events").register(registry);
+        Gauge.builder("user.events.queue", queue, Collection::size).description("User events waiting to be written").register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void addUserEvent(String email, EventType type, String userAgent, String ipAddress) {
+        PendingUserEvent event = PendingUserEvent.builder()
+                .email(email).type(type).userAgent(userAgent).ipAddress(ipAddress).createdAt(now()).build();
+        if (!running || !queue.offer(event)) {
+            overflow.increment();
+            flush(new ArrayList<>(List.of(event)));
+        }
+    }
+
+    /**
+     * Stops taking new events, the writer thread writes what is left in the queue and stops.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(shutdownTimeout);
+        if (writer.isAlive()) {
+            log.warn("User event writer did not finish in {} ms, {} events were not written", shutdownTimeout, queue.size());
+        }
+    }
+
+    private void run() {
+        List<PendingUserEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingUserEvent first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) break;
+                    PendingUserEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                running = false;
+                log.warn("User event writer interrupted, {} events were not written", batch.size());
+            } catch (RuntimeException e) {
+                log.error("Dropped {} user events: {}", batch.size(), e.getMessage(), e);
+                dropped.increment(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the batch, retrying the transient failures with a growing delay until it is stored. Only interrupting the writer stops it.
+     */
+    private void write(List<PendingUserEvent> batch) throws InterruptedException {
+        long delay = retryDelay;
+        while (!batch.isEmpty()) {
+            try {
+                flush(batch);
+                return;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    writeOneByOne(batch);
+                    return;
+                }
+                retried.increment();
+                log.warn("Could not write {} user events, trying again in {} ms: {}", batch.size(), delay, e.getMessage());
+                Thread.sleep(delay);
+                delay = Math.min(delay * 2, maxRetryDelay);
+            }
+        }
+    }
+
+    /**
+     * The events that were written or dropped are removed from the batch, so a transient failure retries only the rest.
+     */
+    private void writeOneByOne(List<PendingUserEvent> batch) {
+        for (Iterator<PendingUserEvent> events = batch.iterator(); events.hasNext(); ) {
+            PendingUserEvent event = events.next();
+            try {
+                flush(new ArrayList<>(List.of(event)));
+            } catch (RuntimeException e) {
+                if (isTransient(e)) throw e;
+                log.warn("Dropped the user event {} of {}: {}", event.getType(), event.getEmail(), e.getMessage());
+                dropped.increment();
+            }
+            events.remove();
+        }
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException || e instanceof DataAccessResourceFailureException;
+    }
+
+    private void flush(List<PendingUserEvent> batch) {
+        flushTimer.record(() -> {
+            resolve(batch);
+            if (!batch.isEmpty()) eventRepository.addUserEvents(batch);
+        });
+    }
+
+    private void resolve(List<PendingUserEvent> batch) {
+        Set<String> missing = new HashSet<>();
+        for (PendingUserEvent event : batch) {
+            event.setUserId(userCache.getId(event.getEmail()));
+            if (event.getUserId() == null) missing.add(event.getEmail().trim().toLowerCase());
+            event.setEventId(eventTypeRegistry.getId(event.getType()));
+            event.setDevice(deviceAnalyzer.getDevice(event.getUserAgent()));
+        }
+        if (!missing.isEmpty()) {
+            Map<String, Long> userIds = eventRepository.getUserIdsByEmails(missing);
+            batch.forEach(event -> {
+                if (event.getUserId() == null) event.setUserId(userIds.get(event.getEmail().trim().toLowerCase()));
+            });
+        }
+        int size = batch.size();
+        batch.removeIf(event -> event.getUserId() == null || event.getEventId() == null);
+        if (batch.size() < size) {
+            log.warn("Dropped {} user events without a user or an event type", size - batch.size());
+            dropped.increment(size - batch.size());
+        }
+    }
+}
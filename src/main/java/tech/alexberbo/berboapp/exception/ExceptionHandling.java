@@ -88,6 +88,16 @@ public class ExceptionHandling extends ResponseEntityExceptionHandler implements
     public ResponseEntity<HttpResponse> passwordResetCodeExpiredException(PasswordResetCodeExpiredException e) {
         return sendResponse(BAD_REQUEST, RESET_PASSWORD_URL_EXPIRED);
     }
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<HttpResponse> passwordHashingBusyException(PasswordHashingBusyException e) {
+        return ResponseEntity.status(SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter())).body(
+                HttpResponse.builder()
+                .status(SERVICE_UNAVAILABLE)
+                .statusCode(SERVICE_UNAVAILABLE.value())
+                .reason(e.getMessage())
+                .message(e.getMessage())
+                .build());
+    }
     @ExceptionHandler(ApiException.class)
     public ResponseEntity<HttpResponse> apiException(ApiException e) {
         return sendResponse(BAD_REQUEST, e.getMessage());
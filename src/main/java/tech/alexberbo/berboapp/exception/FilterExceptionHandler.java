@@ -13,6 +13,7 @@ import tech.alexberbo.berboapp.model.HttpResponse;
 import java.io.OutputStream;
 
 import static java.time.LocalTime.now;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
@@ -34,6 +35,16 @@ public class FilterExceptionHandler {
         log.error(e.getMessage());
     }
 
+    public static void handleTooManyRequests(HttpServletResponse response, long retryAfter) {
+        HttpResponse httpResponse = getHttpResponse(response, "Too many requests, please try again later!", TOO_MANY_REQUESTS);
+        response.setHeader(RETRY_AFTER, String.valueOf(retryAfter));
+        writeResponse(httpResponse, response);
+    }
+
+    public static void handlePayloadTooLarge(HttpServletResponse response) {
+        writeResponse(getHttpResponse(response, "The request body is too large!", PAYLOAD_TOO_LARGE), response);
+    }
+
     private static void writeResponse(HttpResponse httpResponse, HttpServletResponse response) {
         OutputStream out;
         try {
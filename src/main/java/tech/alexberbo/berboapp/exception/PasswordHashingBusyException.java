@@ -0,0 +1,13 @@
+package tech.alexberbo.berboapp.exception;
+
+import lombok.Getter;
+
+@Getter
+public class PasswordHashingBusyException extends RuntimeException {
+    private final long retryAfter;
+
+    public PasswordHashingBusyException(String message, long retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -1,5 +1,6 @@
 package tech.alexberbo.berboapp.filter;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -32,7 +33,8 @@ public class AuthorizationFilter extends OncePerRequestFilter {
     private final JWTProvider jwtProvider;
 
     /**
-     * Here a user is passing the token, and we are checking if the token is valid,
+     * Here a user is passing the token, and we are checking if the token is valid, the token is verified only once
+     * and the decoded token is used for reading the user id, the expiration and the authorities,
      * and we are telling spring that the token is good, assigning the token to its rightful
      * owner and setting the user as authenticated, else we are clearing the spring context
      * removing access for the user, then we let the filterChain do its own thing of going through
@@ -41,11 +43,11 @@ public class AuthorizationFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filter) throws ServletException, IOException {
         try {
-            String token = getToken(request);
-            Long userId = getUserId(request);
-            if (jwtProvider.isTokenValid(token, userId)) {
-                List<GrantedAuthority> authorities = jwtProvider.getAuthorities(token);
-                Authentication authentication = jwtProvider.getAuthentication(userId, authorities, request);
+            DecodedJWT decodedToken = jwtProvider.verifyToken(getToken(request), request);
+            Long userId = jwtProvider.getSubject(decodedToken);
+            if (jwtProvider.isTokenValid(decodedToken, userId)) {
+                List<GrantedAuthority> authorities = jwtProvider.getAuthorities(decodedToken);
+                Authentication authentication = jwtProvider.getAuthentication(decodedToken, userId, authorities, request);
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             } else {
                 SecurityContextHolder.clearContext();
@@ -63,10 +65,6 @@ public class AuthorizationFilter extends OncePerRequestFilter {
                 request.getMethod().equalsIgnoreCase(OPTIONS.name()) || asList(PUBLIC_URLS).contains(request.getRequestURI());
     }
 
-    private Long getUserId(HttpServletRequest request) {
-        return jwtProvider.getSubject(getToken(request), request);
-    }
-
     private String getToken(HttpServletRequest request) {
         return ofNullable(request.getHeader(AUTHORIZATION))
                 .filter(header -> header.startsWith(TOKEN_PREFIX))
@@ -0,0 +1,175 @@
+package tech.alexberbo.berboapp.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tech.alexberbo.berboapp.config.RateLimitProperties;
+import tech.alexberbo.berboapp.config.RateLimitProperties.Limit;
+import tech.alexberbo.berboapp.config.RateLimitProperties.Route;
+import tech.alexberbo.berboapp.util.TokenBucket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static tech.alexberbo.berboapp.exception.FilterExceptionHandler.handlePayloadTooLarge;
+import static tech.alexberbo.berboapp.exception.FilterExceptionHandler.handleTooManyRequests;
+import static tech.alexberbo.berboapp.util.RequestUtils.X_FORWARDED_FOR_HEADER;
+
+/**
+ * Limits how often the login, register, MFA code and password reset endpoints can be called, before the request
+ * gets to the BCrypt hashing, the queries and the emails. It runs before the AuthorizationFilter.
+ * Every route of rate-limit.routes has a token bucket per IP and/or per email. The IP buckets and the email buckets are kept in two
+ * Caffeine caches, each bounded by rate-limit.maximum-keys and dropped after rate-limit.idle-timeout ms without requests (a dropped bucket
+ * comes back full), so many IPs can't push the email buckets out. The IP is only taken from X-Forwarded-For behind a trusted proxy.
+ * A JSON body is read up to rate-limit.max-body-size bytes to find the email, a bigger body on a per email route gets a 413,
+ * otherwise padding the body would skip the email limit.
+ * When a bucket is empty the request gets a 429 with Retry-After, and rate.limit.rejected is counted with the limit that rejected it.
+ */
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String EMAIL = "email";
+    // Only IP literals are matched against the proxies, a host name in the header would be resolved with DNS
+    private static final Pattern IP_ADDRESS = Pattern.compile("[0-9a-fA-F:.]+");
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final Cache<String, TokenBucket> ipBuckets;
+    private final Cache<String, TokenBucket> emailBuckets;
+    private final List<IpAddressMatcher> trustedProxies;
+    private final Counter rejectedByIp;
+    private final Counter rejectedByEmail;
+
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry registry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.ipBuckets = newBuckets(properties);
+        this.emailBuckets = newBuckets(properties);
+        this.trustedProxies = properties.getTrustedProxies().stream().map(IpAddressMatcher::new).toList();
+        this.rejectedByIp = Counter.builder("rate.limit.rejected").tag("limit", "ip").description("Requests rejected by the rate limit").register(registry);
+        this.rejectedByEmail = Counter.builder("rate.limit.rejected").tag("limit", "email").description("Requests rejected by the rate limit").register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filter) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (int index = 0; index < properties.getRoutes().size(); index++) {
+            Route route = properties.getRoutes().get(index);
+            if (!matches(route, request, path)) continue;
+            if (route.getPerIp() != null && reject(response, ipBuckets, index + ":" + getClientIp(request), route.getPerIp(), rejectedByIp)) return;
+            if (route.getPerEmail() != null) {
+                Map<String, String> variables = matcher.extractUriTemplateVariables(route.getPattern(), path);
+                String email = variables.get(EMAIL);
+                if (email == null && isJson(request)) {
+                    byte[] body = readBody(request);
+                    if (body == null) {
+                        handlePayloadTooLarge(response);
+                        return;
+                    }
+                    request = new CachedBodyRequest(request, body);
+                    email = getEmail(body);
+                }
+                if (email != null && reject(response, emailBuckets, index + ":" + email.trim().toLowerCase(), route.getPerEmail(), rejectedByEmail)) return;
+            }
+            break;
+        }
+        filter.doFilter(request, response);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || properties.getRoutes().isEmpty();
+    }
+
+    private boolean matches(Route route, HttpServletRequest request, String path) {
+        return (route.getMethod() == null || route.getMethod().equalsIgnoreCase(request.getMethod())) && matcher.match(route.getPattern(), path);
+    }
+
+    private static Cache<String, TokenBucket> newBuckets(RateLimitProperties properties) {
+        return Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumKeys())
+                .expireAfterAccess(properties.getIdleTimeout(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * The address of the connection, or when it is a trusted proxy, the last address of X-Forwarded-For that isn't one.
+     * The addresses left of it were sent by the client and can be anything.
+     */
+    private String getClientIp(HttpServletRequest request) {
+        String address = request.getRemoteAddr();
+        String forwarded = request.getHeader(X_FORWARDED_FOR_HEADER);
+        if (forwarded == null || !isTrustedProxy(address)) return address;
+        String[] hops = forwarded.split(",");
+        for (int hop = hops.length - 1; hop >= 0; hop--) {
+            address = hops[hop].trim();
+            if (!isTrustedProxy(address)) return address;
+        }
+        return address;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        if (!IP_ADDRESS.matcher(address).matches()) return false;
+        try {
+            return trustedProxies.stream().anyMatch(proxy -> proxy.matches(address));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean reject(HttpServletResponse response, Cache<String, TokenBucket> buckets, String key, Limit limit, Counter rejected) {
+        long wait = buckets.get(key, ignored -> new TokenBucket(limit.getCapacity(), limit.getRefillPerMinute())).tryConsume();
+        if (wait == 0) return false;
+        rejected.increment();
+        log.warn("Rate limit reached for {}", key);
+        handleTooManyRequests(response, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait) + 1));
+        return true;
+    }
+
+    private boolean isJson(HttpServletRequest request) {
+        try {
+            return request.getContentType() != null && MediaType.parseMediaType(request.getContentType()).isCompatibleWith(APPLICATION_JSON);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The body, read even when the length isn't known (chunked), or null when it is bigger than rate-limit.max-body-size.
+     */
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        if (request instanceof CachedBodyRequest cached) return cached.getBody();
+        if (request.getContentLengthLong() > properties.getMaxBodySize()) return null;
+        InputStream in = request.getInputStream();
+        byte[] body = in.readNBytes(properties.getMaxBodySize());
+        return in.read() == -1 ? body : null;
+    }
+
+    private String getEmail(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).get(EMAIL);
+            return email != null && email.isTextual() ? email.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
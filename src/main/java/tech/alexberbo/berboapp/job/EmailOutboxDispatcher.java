@@ -0,0 +1,182 @@
+package tech.alexberbo.berboapp.job;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tech.alexberbo.berboapp.model.OutboxEmail;
+import tech.alexberbo.berboapp.repository.EmailOutboxRepository;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.time.LocalDateTime.now;
+import static tech.alexberbo.berboapp.constant.email.EmailConstants.UTF_8;
+
+/**
+ * Sends the emails of the EmailOutbox table. Every email-outbox.poll-interval ms up to email-outbox.concurrency workers
+ * claim email-outbox.batch-size due emails each and send the whole batch over one SMTP connection, until nothing is due.
+ * The claim uses SKIP LOCKED, so more workers or more app instances never send the same email at the same time.
+ * <p>
+ * A failed email is tried again after email-outbox.retry-delay ms, doubled with every attempt up to email-outbox.max-retry-delay,
+ * after email-outbox.max-attempts attempts it is marked FAILED and stays in the table with the last error.
+ * Emails are sent at least once: if the app stops after sending and before marking the batch, the batch is sent again after the lease.
+ * <p>
+ * Metrics: email.outbox.sent, email.outbox.retried, email.outbox.failed, email.outbox.batch (send time of a batch)
+ * and email.outbox.delay (time from the outbox insert to the delivery).
+ */
+@Component
+@Slf4j
+public class EmailOutboxDispatcher {
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final ExecutorService workers;
+    private final Semaphore permits;
+    private final int batchSize;
+    private final int leaseSeconds;
+    private final int maxAttempts;
+    private final long retryDelay;
+    private final long maxRetryDelay;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer batchTimer;
+    private final Timer delay;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository, JavaMailSender mailSender, MeterRegistry registry,
+                                 @Value("${email-outbox.concurrency:2}") int concurrency,
+                                 @Value("${email-outbox.batch-size:20}") int batchSize,
+                                 @Value("${email-outbox.lease:300}") int leaseSeconds,
+                                 @Value("${email-outbox.max-attempts:8}") int maxAttempts,
+                                 @Value("${email-outbox.retry-delay:30000}") long retryDelay,
+                                 @Value("${email-outbox.max-retry-delay:3600000}") long maxRetryDelay) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        AtomicInteger count = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(concurrency, runnable -> new Thread(runnable, "email-outbox-" + count.incrementAndGet()));
+        this.permits = new Semaphore(concurrency);
+        this.batchSize = batchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.maxRetryDelay = maxRetryDelay;
+        this.sent = Counter.builder("email.outbox.sent").description("Emails delivered to the SMTP server").register(registry);
+        this.retried = Counter.builder("email.outbox.retried").description("Emails that failed and will be tried again").register(registry);
+        this.failed = Counter.builder("email.outbox.failed").description("Emails that failed all the attempts").register(registry);
+        this.batchTimer = Timer.builder("email.outbox.batch").description("Sending one batch over one SMTP connection").register(registry);
+        this.delay = Timer.builder("email.outbox.delay").description("Time from the outbox insert to the delivery").register(registry);
+    }
+
+    /**
+     * Starts a worker for every free permit, the workers that are still sending keep their permit.
+     */
+    @Scheduled(initialDelayString = "${email-outbox.poll-interval:1000}", fixedDelayString = "${email-outbox.poll-interval:1000}")
+    public void dispatch() {
+        while (permits.tryAcquire()) {
+            try {
+                workers.execute(() -> {
+                    try {
+                        drain();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void drain() {
+        try {
+            List<OutboxEmail> batch;
+            do {
+                batch = emailOutboxRepository.claim(batchSize, leaseSeconds);
+                if (!batch.isEmpty()) send(batch);
+            } while (batch.size() == batchSize && !workers.isShutdown());
+        } catch (Exception e) {
+            log.error("Could not dispatch the email outbox: {}", e.getMessage());
+        }
+    }
+
+    private void send(List<OutboxEmail> batch) {
+        Map<MimeMessage, OutboxEmail> messages = new LinkedHashMap<>();
+        for (OutboxEmail email : batch) {
+            try {
+                messages.put(toMessage(email), email);
+            } catch (MessagingException e) {
+                fail(email, e);
+            }
+        }
+        if (messages.isEmpty()) return;
+        Map<Object, Exception> failures = Map.of();
+        Timer.Sample sample = Timer.start();
+        try {
+            mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+        } catch (MailException e) {
+            failures = new HashMap<>();
+            for (MimeMessage message : messages.keySet()) failures.put(message, e);
+        } finally {
+            sample.stop(batchTimer);
+        }
+        List<Long> delivered = new ArrayList<>();
+        for (Map.Entry<MimeMessage, OutboxEmail> message : messages.entrySet()) {
+            Exception failure = failures.get(message.getKey());
+            if (failure == null) {
+                delivered.add(message.getValue().getId());
+                delay.record(Duration.between(message.getValue().getCreatedAt(), now()));
+            } else {
+                fail(message.getValue(), failure);
+            }
+        }
+        emailOutboxRepository.setSent(delivered);
+        sent.increment(delivered.size());
+    }
+
+    private MimeMessage toMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, UTF_8);
+        helper.setSubject(email.getSubject());
+        helper.setTo(email.getRecipient());
+        helper.setText(email.getBody());
+        helper.setSentDate(new Date());
+        return message;
+    }
+
+    private void fail(OutboxEmail email, Exception e) {
+        if (email.getAttempts() >= maxAttempts) {
+            log.error("Email {} to {} failed {} times, giving up: {}", email.getId(), email.getRecipient(), email.getAttempts(), e.getMessage());
+            emailOutboxRepository.setFailed(email.getId(), e.getMessage());
+            failed.increment();
+        } else {
+            long backoff = Math.min(maxRetryDelay, retryDelay << Math.min(email.getAttempts() - 1, 20));
+            log.warn("Email {} to {} failed, trying again in {} s: {}", email.getId(), email.getRecipient(), backoff / 1000, e.getMessage());
+            emailOutboxRepository.setRetry(email.getId(), TimeUnit.MILLISECONDS.toSeconds(backoff), e.getMessage());
+            retried.increment();
+        }
+    }
+}
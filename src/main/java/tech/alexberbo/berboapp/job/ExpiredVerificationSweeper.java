@@ -0,0 +1,71 @@
+package tech.alexberbo.berboapp.job;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tech.alexberbo.berboapp.repository.SweeperRepository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Deletes the expired rows of the verification tables every expiry-sweeper.interval ms, so the lookups by code and url stay on small tables.
+ * The rows are deleted in chunks of expiry-sweeper.chunk-size with a short pause between the chunks, so the login and reset requests
+ * never wait long for a lock. One run stops after expiry-sweeper.max-chunks chunks per table, the next run goes on from there.
+ * A user whose account link expired gets a new one by registering again with the same email (UserRepositoryImpl.register).
+ * <p>
+ * Metrics: verification.sweeper.purged (rows deleted, tagged by table) and verification.sweeper.run (duration of a run).
+ */
+@Component
+@Slf4j
+public class ExpiredVerificationSweeper {
+    private final Map<String, IntUnaryOperator> tables = new LinkedHashMap<>();
+    private final Map<String, Counter> purged = new LinkedHashMap<>();
+    private final Timer runTimer;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final long chunkPause;
+
+    public ExpiredVerificationSweeper(SweeperRepository sweeperRepository, MeterRegistry registry,
+                                      @Value("${expiry-sweeper.chunk-size:1000}") int chunkSize,
+                                      @Value("${expiry-sweeper.max-chunks:100}") int maxChunks,
+                                      @Value("${expiry-sweeper.chunk-pause:50}") long chunkPause) {
+        tables.put("TwoFactorVerifications", sweeperRepository::deleteExpiredTwoFactorCodes);
+        tables.put("PasswordResetVerifications", sweeperRepository::deleteExpiredPasswordResetUrls);
+        tables.put("AccountVerifications", sweeperRepository::deleteExpiredAccountUrls);
+        tables.keySet().forEach(table -> purged.put(table, Counter.builder("verification.sweeper.purged")
+                .description("Expired verification rows deleted").tag("table", table).register(registry)));
+        this.runTimer = Timer.builder("verification.sweeper.run").description("Duration of one sweep of the verification tables").register(registry);
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        this.chunkPause = chunkPause;
+    }
+
+    @Scheduled(initialDelayString = "${expiry-sweeper.initial-delay:60000}", fixedDelayString = "${expiry-sweeper.interval:900000}")
+    public void sweep() {
+        runTimer.record(() -> tables.forEach(this::sweep));
+    }
+
+    private void sweep(String table, IntUnaryOperator delete) {
+        int total = 0;
+        try {
+            for (int chunk = 0; chunk < maxChunks; chunk++) {
+                int deleted = delete.applyAsInt(chunkSize);
+                total += deleted;
+                purged.get(table).increment(deleted);
+                if (deleted < chunkSize) break;
+                Thread.sleep(chunkPause);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Could not delete the expired rows of {}: {}", table, e.getMessage());
+        }
+        if (total > 0) log.info("Deleted {} expired rows from {}", total, table);
+    }
+}
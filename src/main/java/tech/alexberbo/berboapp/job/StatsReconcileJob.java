@@ -0,0 +1,29 @@
+package tech.alexberbo.berboapp.job;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tech.alexberbo.berboapp.model.Stats;
+import tech.alexberbo.berboapp.repository.StatsRepository;
+
+/**
+ * Recounts the dashboard stats from the customer and invoice tables, when the app starts and then every stats.reconcile-interval ms.
+ * This fixes the counters after rows were added or removed outside of the app, for example straight in the database.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatsReconcileJob {
+    private final StatsRepository statsRepository;
+
+    @Scheduled(initialDelayString = "${stats.reconcile-initial-delay:10000}", fixedDelayString = "${stats.reconcile-interval:3600000}")
+    public void reconcile() {
+        try {
+            Stats stats = statsRepository.reconcile();
+            log.info("Dashboard stats reconciled: {} customers, {} invoices", stats.getTotalCustomers(), stats.getTotalInvoices());
+        } catch (Exception e) {
+            log.error("Could not reconcile the dashboard stats: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package tech.alexberbo.berboapp.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Slice;
+import tech.alexberbo.berboapp.exception.ApiException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+    One page of a cursor (keyset) listing. There is no total count, only the cursor of the next page,
+    which is sent back as the "after" parameter and is null on the last page.
+    The cursor is the id of the last row encoded as an opaque token, the client should never build it.
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+    private static final String PREFIX = "id:";
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+
+    public static <T> CursorPage<T> of(Slice<T> slice, Function<T, Long> id) {
+        List<T> content = slice.getContent();
+        String next = slice.hasNext() && !content.isEmpty() ? encode(id.apply(content.get(content.size() - 1))) : null;
+        return new CursorPage<>(content, content.size(), next);
+    }
+
+    /**
+        Id that the next page starts after, without a cursor the listing starts from the newest row.
+     */
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return Long.MAX_VALUE;
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) throw new IllegalArgumentException(value);
+            return Long.valueOf(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -14,7 +14,7 @@ import java.util.Collection;
 import java.util.Date;
 
 import static jakarta.persistence.CascadeType.ALL;
-import static jakarta.persistence.FetchType.EAGER;
+import static jakarta.persistence.FetchType.LAZY;
 import static jakarta.persistence.GenerationType.IDENTITY;
 
 @Data
@@ -35,6 +35,6 @@ public class Customer {
     private String phone;
     private String imageUrl;
     private Date createdAt;
-    @OneToMany(mappedBy = "customer", fetch = EAGER, cascade = ALL)
+    @OneToMany(mappedBy = "customer", fetch = LAZY, cascade = ALL)
     private Collection<Invoice> invoices;
 }
@@ -0,0 +1,21 @@
+package tech.alexberbo.berboapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+
+@Data
+@SuperBuilder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEmail {
+    private Long id;
+    private String recipient;
+    private String subject;
+    private String body;
+    private int attempts;
+    private LocalDateTime createdAt;
+}
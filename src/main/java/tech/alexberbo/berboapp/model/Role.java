@@ -1,14 +1,19 @@
 package tech.alexberbo.berboapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.List;
 
 /**
     This is the User Role class object.
+    The authorities are the parsed permissions, roles from the RoleCatalog already have them,
+    for the other roles they are parsed the first time they are needed.
  */
 @Data
 @SuperBuilder
@@ -19,4 +24,24 @@ public class Role {
     private Long id;
     private String name;
     private String permissions;
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<GrantedAuthority> authorities;
+
+    public void setPermissions(String permissions) {
+        this.permissions = permissions;
+        this.authorities = null;
+    }
+
+    public void setAuthorities(List<GrantedAuthority> authorities) {
+        this.authorities = List.copyOf(authorities);
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        if (authorities == null) {
+            authorities = List.copyOf(AuthorityUtils.commaSeparatedStringToAuthorityList(permissions));
+        }
+        return authorities;
+    }
 }
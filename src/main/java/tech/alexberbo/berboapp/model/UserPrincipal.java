@@ -2,7 +2,6 @@ package tech.alexberbo.berboapp.model;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import tech.alexberbo.berboapp.dto.UserDTO;
 
@@ -21,8 +20,7 @@ public class UserPrincipal implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        //return stream(role.getPermissions().split(",".trim())).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
-        return AuthorityUtils.commaSeparatedStringToAuthorityList(role.getPermissions());
+        return role.getAuthorities();
     }
 
     @Override
@@ -0,0 +1,184 @@
+package tech.alexberbo.berboapp.profiling;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.Set;
+
+/**
+ * Wraps the connections of the pool so that every statement is timed by the SqlProfiler.
+ * The statements are wrapped when they are prepared (the SQL is known then), the execute calls are timed,
+ * and the result sets count their rows until they are closed. Everything else goes straight to the JDBC driver.
+ * A plain Statement keeps the SQL of its last execute or addBatch, so the result set read later with getResultSet gets the right name.
+ * Every call on a result set goes through the proxy (about one reflective call per column read), the ProfilingBenchmark
+ * measures that on a 100000 row read, set sql-profiling.enabled: false if it shows up in the report exports.
+ * unwrap() still returns the real pool, so the Hikari metrics and health check keep working.
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+    private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private final ObjectProvider<SqlProfiler> profilerProvider;
+    private volatile SqlProfiler profiler;
+
+    public ProfilingDataSource(DataSource dataSource, ObjectProvider<SqlProfiler> profilerProvider) {
+        super(dataSource);
+        this.profilerProvider = profilerProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    private SqlProfiler profiler() {
+        if (profiler == null) profiler = profilerProvider.getObject();
+        return profiler;
+    }
+
+    private static <T> T wrap(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class ForwardingHandler implements InvocationHandler {
+        protected final Object target;
+
+        private ForwardingHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> handle(proxy, method, args);
+            };
+        }
+
+        protected Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            return ProfilingDataSource.invoke(target, method, args);
+        }
+    }
+
+    private class ConnectionHandler extends ForwardingHandler {
+        private ConnectionHandler(Connection connection) {
+            super(connection);
+        }
+
+        @Override
+        protected Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = super.handle(proxy, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement" -> wrap(PreparedStatement.class, new StatementHandler(result, (String) args[0]));
+                case "prepareCall" -> wrap(CallableStatement.class, new StatementHandler(result, (String) args[0]));
+                case "createStatement" -> wrap(Statement.class, new StatementHandler(result, null));
+                default -> result;
+            };
+        }
+    }
+
+    private class StatementHandler extends ForwardingHandler {
+        private final boolean prepared;
+        private String sql;
+
+        private StatementHandler(Object statement, String sql) {
+            super(statement);
+            this.prepared = sql != null;
+            this.sql = sql;
+        }
+
+        @Override
+        protected Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("getResultSet")) return rows(profiler().getName(getSql(null)), super.handle(proxy, method, args));
+            if (method.getName().equals("addBatch")) getSql(args);
+            if (!EXECUTE.contains(method.getName())) return super.handle(proxy, method, args);
+            String sql = getSql(args);
+            String name = profiler().getName(sql);
+            long start = System.nanoTime();
+            Throwable exception = null;
+            try {
+                Object result = super.handle(proxy, method, args);
+                if (result instanceof ResultSet) return rows(name, result);
+                if (result instanceof Number count) profiler().recordRows(name, count.longValue());
+                if (result instanceof int[] counts) profiler().recordRows(name, sum(counts));
+                if (result instanceof long[] counts) profiler().recordRows(name, sum(counts));
+                return result;
+            } catch (Throwable e) {
+                exception = e;
+                throw e;
+            } finally {
+                profiler().recordExecution(name, sql, System.nanoTime() - start, exception);
+            }
+        }
+
+        /**
+         * The SQL of the statement, a plain Statement takes the one passed to the call and remembers it.
+         */
+        private String getSql(Object[] args) {
+            if (!prepared && args != null && args.length > 0 && args[0] instanceof String statement) sql = statement;
+            return sql == null ? "batch" : sql;
+        }
+
+        private Object rows(String name, Object resultSet) {
+            return resultSet == null ? null : wrap(ResultSet.class, new ResultSetHandler(resultSet, name));
+        }
+
+        private static long sum(int[] counts) {
+            long sum = 0;
+            for (int count : counts) if (count > 0) sum += count;
+            return sum;
+        }
+
+        private static long sum(long[] counts) {
+            long sum = 0;
+            for (long count : counts) if (count > 0) sum += count;
+            return sum;
+        }
+    }
+
+    private class ResultSetHandler extends ForwardingHandler {
+        private final String name;
+        private long rows;
+        private boolean closed;
+
+        private ResultSetHandler(Object resultSet, String name) {
+            super(resultSet);
+            this.name = name;
+        }
+
+        @Override
+        protected Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = super.handle(proxy, method, args);
+            switch (method.getName()) {
+                case "next" -> {
+                    if ((Boolean) result) rows++;
+                }
+                case "close" -> {
+                    if (!closed) profiler().recordRows(name, rows);
+                    closed = true;
+                }
+                default -> {
+                }
+            }
+            return result;
+        }
+    }
+}
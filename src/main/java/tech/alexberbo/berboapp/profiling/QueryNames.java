@@ -0,0 +1,60 @@
+package tech.alexberbo.berboapp.profiling;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import tech.alexberbo.berboapp.constant.query.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Gives every SQL statement that reaches the database a short name for the metrics.
+ * The statements of the query constants are named after the constant (UserQuery.SELECT_USER_BY_EMAIL_QUERY), they are matched
+ * by their JDBC form (the :params replaced with ?), so the IN lists expanded by NamedParameterJdbcTemplate match as well.
+ * Every other statement (Hibernate, Flyway) is named after its operation and first table ("select customer"),
+ * so the number of names stays bounded whatever the parameters are.
+ */
+public class QueryNames {
+    private static final Class<?>[] QUERIES = {UserQuery.class, RoleQuery.class, EventQuery.class, StatsQuery.class, CustomerQuery.class,
+            ReportQuery.class, EmailOutboxQuery.class, VerificationCodeQuery.class, SweeperQuery.class};
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final Pattern OPERATION = Pattern.compile("^\\s*(\\w+)");
+    private static final Pattern TABLE = Pattern.compile("(?i)\\b(?:from|into|update|join|table)\\s+[`\"]?(?:\\w+[`\"]?\\.[`\"]?)?(\\w+)");
+    private final Map<String, String> names = new HashMap<>();
+
+    public QueryNames() {
+        for (Class<?> queries : QUERIES) {
+            for (Field field : queries.getFields()) {
+                if (field.getType() != String.class || !Modifier.isStatic(field.getModifiers())) continue;
+                try {
+                    String sql = NamedParameterUtils.parseSqlStatementIntoString((String) field.get(null));
+                    names.putIfAbsent(normalize(sql), queries.getSimpleName() + "." + field.getName());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    public String getName(String sql) {
+        String name = names.get(normalize(sql));
+        return name != null ? name : describe(sql);
+    }
+
+    private static String normalize(String sql) {
+        return PARAMETER_LIST.matcher(WHITESPACE.matcher(sql.trim()).replaceAll(" ")).replaceAll("?");
+    }
+
+    private static String describe(String sql) {
+        Matcher operation = OPERATION.matcher(sql);
+        if (!operation.find()) return "other";
+        Matcher table = TABLE.matcher(sql);
+        String name = operation.group(1).toLowerCase(Locale.ROOT);
+        return table.find() ? name + " " + table.group(1).toLowerCase(Locale.ROOT) : name;
+    }
+}
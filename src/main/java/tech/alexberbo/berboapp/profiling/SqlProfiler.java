@@ -0,0 +1,74 @@
+package tech.alexberbo.berboapp.profiling;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every SQL statement run through the ProfilingDataSource, the JdbcTemplate queries and the Hibernate ones alike.
+ * Metrics: sql.query (calls and latency of the execute, tagged with the query name and the exception) and sql.rows
+ * (rows read from the result set, or rows changed by an update).
+ * A statement slower than sql-profiling.slow-threshold ms is counted in sql.slow, and written to the log
+ * for sql-profiling.slow-sample-rate of the cases, so a slow database doesn't flood the log.
+ * The meters are kept in maps by query name, so a statement only looks up its meters instead of building and registering them again.
+ */
+@Component
+@Slf4j
+public class SqlProfiler {
+    private final MeterRegistry registry;
+    private final QueryNames queryNames = new QueryNames();
+    private final Cache<String, String> names;
+    private final long slowThreshold;
+    private final double slowSampleRate;
+    private final Map<QueryKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+    private final Map<String, Counter> slowCounters = new ConcurrentHashMap<>();
+
+    public SqlProfiler(MeterRegistry registry,
+                       @Value("${sql-profiling.names-size:1000}") long namesSize,
+                       @Value("${sql-profiling.slow-threshold:200}") long slowThreshold,
+                       @Value("${sql-profiling.slow-sample-rate:0.1}") double slowSampleRate) {
+        this.registry = registry;
+        this.names = Caffeine.newBuilder().maximumSize(namesSize).build();
+        this.slowThreshold = TimeUnit.MILLISECONDS.toNanos(slowThreshold);
+        this.slowSampleRate = slowSampleRate;
+    }
+
+    public String getName(String sql) {
+        return names.get(sql, queryNames::getName);
+    }
+
+    public void recordExecution(String name, String sql, long nanos, Throwable exception) {
+        timers.computeIfAbsent(new QueryKey(name, exception == null ? "none" : exception.getClass().getSimpleName()), key ->
+                Timer.builder("sql.query").description("SQL statements").tags("query", key.name(), "exception", key.exception()).register(registry)
+        ).record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos >= slowThreshold) {
+            slowCounters.computeIfAbsent(name, key ->
+                    Counter.builder("sql.slow").description("SQL statements slower than the threshold").tag("query", key).register(registry)
+            ).increment();
+            if (ThreadLocalRandom.current().nextDouble() < slowSampleRate) {
+                log.warn("Slow query {} took {} ms: {}", name, TimeUnit.NANOSECONDS.toMillis(nanos), sql);
+            }
+        }
+    }
+
+    public void recordRows(String name, long rows) {
+        rowSummaries.computeIfAbsent(name, key ->
+                DistributionSummary.builder("sql.rows").description("Rows read or changed by the SQL statements").tag("query", key).register(registry)
+        ).record(rows);
+    }
+
+    private record QueryKey(String name, String exception) {
+    }
+}
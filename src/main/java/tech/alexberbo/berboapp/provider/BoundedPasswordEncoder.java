@@ -0,0 +1,116 @@
+package tech.alexberbo.berboapp.provider;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import tech.alexberbo.berboapp.exception.ApiException;
+import tech.alexberbo.berboapp.exception.PasswordHashingBusyException;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static tech.alexberbo.berboapp.constant.exception.ExceptionConstants.PASSWORD_HASHING_BUSY;
+
+/**
+ * BCrypt is slow on purpose, so the hashing runs on its own pool with one thread per core (password-hashing.threads, 0 means the core count)
+ * instead of in the Tomcat threads, and a burst of logins can't use all the CPU that the other requests need.
+ * The waiting hashes are kept in a bounded queue (password-hashing.queue-capacity). When the queue is full, or the hash hasn't finished
+ * in password-hashing.max-wait ms, the request fails at once with a PasswordHashingBusyException (503 with Retry-After).
+ * The work factor is password-hashing.strength, when it is raised the old hashes are upgraded on the next login of the user
+ * (upgradeEncoding, used by the DaoAuthenticationProvider with the UserDetailsPasswordService).
+ * <p>
+ * Metrics: password.hash (hashing time, tagged encode or matches), password.hash.queue.wait (time in the queue),
+ * password.hash.rejected (requests turned away) and the executor metrics of the "password-hashing" pool.
+ */
+@Component
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final BCryptPasswordEncoder bcrypt;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+    private final long maxWait;
+    private final long retryAfter;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(@Value("${password-hashing.strength:10}") int strength,
+                                  @Value("${password-hashing.threads:0}") int threads,
+                                  @Value("${password-hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${password-hashing.max-wait:5000}") long maxWait,
+                                  @Value("${password-hashing.retry-after:1}") long retryAfter,
+                                  MeterRegistry registry) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        this.bcrypt = new BCryptPasswordEncoder(strength);
+        this.pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "password-hashing-" + count.incrementAndGet()), new ThreadPoolExecutor.AbortPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(registry, pool, "password-hashing");
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+        this.encodeTimer = Timer.builder("password.hash").tag("operation", "encode").description("BCrypt hashing time").register(registry);
+        this.matchesTimer = Timer.builder("password.hash").tag("operation", "matches").description("BCrypt hashing time").register(registry);
+        this.queueWait = Timer.builder("password.hash.queue.wait").description("Time a hash waited for a hashing thread").register(registry);
+        this.rejected = Counter.builder("password.hash.rejected").description("Hashes turned away because the pool was busy").register(registry);
+        log.info("Password hashing with BCrypt strength {} on {} threads", strength, size);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private <T> T run(Timer timer, Callable<T> hash) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWait.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(hash);
+            });
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+        try {
+            return future.get(maxWait, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw busy();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new ApiException("Request interrupted, please try again!");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException exception) throw exception;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private PasswordHashingBusyException busy() {
+        rejected.increment();
+        return new PasswordHashingBusyException(PASSWORD_HASHING_BUSY, retryAfter);
+    }
+}
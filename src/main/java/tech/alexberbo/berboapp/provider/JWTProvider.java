@@ -1,23 +1,31 @@
 package tech.alexberbo.berboapp.provider;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.InvalidClaimException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import tech.alexberbo.berboapp.dto.UserDTO;
 import tech.alexberbo.berboapp.model.UserPrincipal;
 import tech.alexberbo.berboapp.service.UserService;
 
+import java.time.Duration;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
@@ -37,20 +45,45 @@ import static tech.alexberbo.berboapp.constant.security.SecurityConstants.*;
 public class JWTProvider {
     @Value("${jwt.secret}")
     private String secret;
+    @Value("${jwt.principal-from-claims:false}")
+    private boolean principalFromClaims;
+    @Value("${jwt.account-status-ttl:30000}")
+    private long accountStatusTtl;
     private final UserService userService;
+    private Algorithm algorithm;
+    private JWTVerifier verifier;
+    private Cache<Long, Boolean> accountStatus;
+
+    /**
+     * The algorithm and the verifier are immutable and thread safe, so they are built only once when the app starts
+     * and shared between all the requests, instead of building new ones every time a token is signed or verified.
+     */
+    @PostConstruct
+    public void init() {
+        this.algorithm = Algorithm.HMAC512(secret.getBytes());
+        this.verifier = getJwtVerifier();
+        this.accountStatus = Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(Duration.ofMillis(accountStatusTtl)).build();
+    }
 
     /**
      * This is the pattern to create the access token and set the information about it.
      * To who it belongs (subject), who is the creator and what authorities the owner has, and with what algorithm is set for encryption.
      */
     public String createAccessToken(UserPrincipal userPrincipal) {
-        return JWT.create()
+        UserDTO user = userPrincipal.getUser();
+        JWTCreator.Builder builder = JWT.create()
                 .withIssuer(ALEXBERBO)
                 .withAudience(ALEXBERBO_MANAGEMENT)
                 .withIssuedAt(new Date())
-                .withSubject(String.valueOf(userPrincipal.getUser().getId())).withArrayClaim(AUTHORITIES, getUserPermission(userPrincipal))
-                .withExpiresAt(new Date(currentTimeMillis() + TOKEN_EXPIRATION_DATE))
-                .sign(Algorithm.HMAC512(secret.getBytes()));
+                .withSubject(String.valueOf(user.getId())).withArrayClaim(AUTHORITIES, getUserPermission(userPrincipal))
+                .withExpiresAt(new Date(currentTimeMillis() + TOKEN_EXPIRATION_DATE));
+        if (principalFromClaims) {
+            builder.withClaim(EMAIL, user.getEmail())
+                    .withClaim(FIRST_NAME, user.getFirstName())
+                    .withClaim(LAST_NAME, user.getLastName())
+                    .withClaim(ROLE_NAME, user.getRoleName());
+        }
+        return builder.sign(algorithm);
     }
 
     /**
@@ -64,64 +97,84 @@ public class JWTProvider {
                 .withIssuedAt(new Date())
                 .withSubject(String.valueOf(userPrincipal.getUser().getId()))
                 .withExpiresAt(new Date(currentTimeMillis() + REFRESH_TOKEN_EXPIRATION_DATE))
-                .sign(Algorithm.HMAC512(secret.getBytes()));
+                .sign(algorithm);
     }
 
     /**
      * What this is doing: Setting the user authenticated after user's token has been verified.
      * Passing the info to Spring so the can log in and access the app.
+     * When jwt.principal-from-claims is turned on and the token carries the user claims, the principal is rebuilt from the token
+     * without loading the user from the database, tokens issued before the switch still fall back to the database.
      */
-    public Authentication getAuthentication(Long userId, List<GrantedAuthority> authorities, HttpServletRequest request) {
-        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userService.getUserById(userId), null, authorities);
+    public Authentication getAuthentication(DecodedJWT decodedToken, Long userId, List<GrantedAuthority> authorities, HttpServletRequest request) {
+        UserDTO user = principalFromClaims && !decodedToken.getClaim(EMAIL).isMissing()
+                ? getUserFromClaims(decodedToken, userId, authorities)
+                : userService.getUserById(userId);
+        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(user, null, authorities);
         authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
         return authenticationToken;
     }
 
     /**
-     * Get the claims of the token, in this case user authorities.
-     * Just like in userPrincipal class, map the authorities to new SGAuths and collect them to a list.
-     * This is used in the AuthorizationFilter class to set the user authorities for the getAuthentication method.
-     */
-    public List<GrantedAuthority> getAuthorities(String token) {
-        String[] authorities = getTokenAuthorities(token);
-        return stream(authorities).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
-    }
-
-    /**
-     * Getting the user's email that we will set in the AuthorizationFilter class.
+     * Verifies the signature and the claims of the token only once, the decoded token is then passed around
+     * in the AuthorizationFilter class, so the subject, expiration and authorities can be read without verifying the token again.
      */
-    public Long getSubject(String token, HttpServletRequest request) {
+    public DecodedJWT verifyToken(String token, HttpServletRequest request) {
         try {
-            return Long.valueOf(getJwtVerifier().verify(token).getSubject());
+            return verifier.verify(token);
         } catch (TokenExpiredException e) {
-            System.out.println(e.getMessage());
             request.setAttribute("tokenExpired", e.getMessage());
             throw e;
         } catch (InvalidClaimException e) {
             request.setAttribute("invalidClaim", e.getMessage());
             throw e;
-        } catch (Exception e) {
-            throw e;
         }
     }
 
-    public boolean isTokenValid(String token, Long userId) {
-        JWTVerifier verifier = getJwtVerifier();
-        return !Objects.isNull(userId) && !isTokenExpired(verifier, token);
+    /**
+     * Get the claims of the token, in this case user authorities.
+     * Just like in userPrincipal class, map the authorities to new SGAuths and collect them to a list.
+     * This is used in the AuthorizationFilter class to set the user authorities for the getAuthentication method.
+     */
+    public List<GrantedAuthority> getAuthorities(DecodedJWT decodedToken) {
+        String[] authorities = decodedToken.getClaim(AUTHORITIES).asArray(String.class);
+        return stream(authorities).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+    }
+
+    /**
+     * Getting the user's id from an already verified token, that we will set in the AuthorizationFilter class.
+     */
+    public Long getSubject(DecodedJWT decodedToken) {
+        return Long.valueOf(decodedToken.getSubject());
     }
 
-    private boolean isTokenExpired(JWTVerifier verifier, String token) {
-        return verifier.verify(token).getExpiresAt().before(new Date());
+    public boolean isTokenValid(DecodedJWT decodedToken, Long userId) {
+        return !Objects.isNull(userId) && !isTokenExpired(decodedToken);
+    }
+
+    private boolean isTokenExpired(DecodedJWT decodedToken) {
+        return decodedToken.getExpiresAt().before(new Date());
     }
 
     /**
-     * Verifying the token with the verifier from the documentation that is really helpful, and it can be found on this link here ->
-     * <a href="https://github.com/auth0/java-jwt">Documentation</a>.
-     * Getting the claims (Authorities) from the token and returning them as an array.
+     * Lightweight principal with the fields that the controllers use from the authenticated user.
+     * The enabled and non locked flags are not in the token, so they are checked against the database,
+     * but the answer is cached for a short time (jwt.account-status-ttl) so a disabled or locked user loses access quickly.
      */
-    private String[] getTokenAuthorities(String token) {
-        JWTVerifier verifier = getJwtVerifier();
-        return verifier.verify(token).getClaim(AUTHORITIES).asArray(String.class);
+    private UserDTO getUserFromClaims(DecodedJWT decodedToken, Long userId, List<GrantedAuthority> authorities) {
+        if (!accountStatus.get(userId, userService::isUserActive)) {
+            throw new DisabledException("Account disabled or locked!");
+        }
+        UserDTO user = new UserDTO();
+        user.setId(userId);
+        user.setEmail(decodedToken.getClaim(EMAIL).asString());
+        user.setFirstName(decodedToken.getClaim(FIRST_NAME).asString());
+        user.setLastName(decodedToken.getClaim(LAST_NAME).asString());
+        user.setRoleName(decodedToken.getClaim(ROLE_NAME).asString());
+        user.setPermissions(authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(",")));
+        user.setEnabled(true);
+        user.setNotLocked(true);
+        return user;
     }
 
     /**
@@ -138,13 +191,10 @@ public class JWTProvider {
      * We sign the algorithm with our key meaning the key will be able to decrypt the token later in the jwt.io website.
      */
     private JWTVerifier getJwtVerifier() {
-        JWTVerifier verifier;
         try {
-            Algorithm algorithm = Algorithm.HMAC512(secret);
-            verifier = JWT.require(algorithm).withIssuer(ALEXBERBO).build();
+            return JWT.require(algorithm).withIssuer(ALEXBERBO).build();
         } catch (JWTVerificationException e) {
             throw new JWTVerificationException("Token can't be verified!");
         }
-        return verifier;
     }
 }
@@ -3,77 +3,101 @@ package tech.alexberbo.berboapp.report;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFFont;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.springframework.core.io.InputStreamResource;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import tech.alexberbo.berboapp.exception.ApiException;
 import tech.alexberbo.berboapp.model.Customer;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.util.List;
+import java.io.Closeable;
+import java.io.OutputStream;
+import java.util.Date;
 
 import static java.util.stream.IntStream.range;
 import static org.apache.commons.lang3.time.DateFormatUtils.format;
 
+/**
+ * Streaming customer report, only the last ROW_WINDOW rows are kept in memory, older rows are flushed to a compressed temp file.
+ * The customers are added one by one with addRow and the file is written straight to the response with write.
+ * The report has to be closed so the temp file is deleted.
+ */
 @Slf4j
-public class CustomerReport {
-    private XSSFWorkbook workbook;
-    private XSSFSheet sheet;
-    private List<Customer> customers;
-    private static String[] HEADERS = { "ID", "Name", "Email", "Phone", "Address", "Status", "Type", "Created At" };
+public class CustomerReport implements Closeable {
+    private static final int ROW_WINDOW = 100;
+    private static final String[] HEADERS = { "ID", "Name", "Email", "Phone", "Address", "Status", "Type", "Created At" };
     private static final String DATE_FORMAT = "yyyy-MM-dd hh:mm:ss";
+    private final SXSSFWorkbook workbook;
+    private final SXSSFSheet sheet;
+    private final CellStyle style;
+    private int rowIndex = 1;
 
-    public CustomerReport(List<Customer> customers) {
-        this.customers = customers;
-        this.workbook = new XSSFWorkbook();
+    public CustomerReport() {
+        this.workbook = new SXSSFWorkbook(ROW_WINDOW);
+        this.workbook.setCompressTempFiles(true);
         this.sheet = workbook.createSheet("Customers");
+        this.style = createStyle(10, false);
         setHeaders();
     }
 
     private void setHeaders() {
         Row rowHeader = sheet.createRow(0);
-        CellStyle style = workbook.createCellStyle();
-        XSSFFont font = workbook.createFont();
-        font.setBold(true);
-        font.setFontHeight(14);
-        style.setFont(font);
+        CellStyle headerStyle = createStyle(14, true);
         range(0, HEADERS.length).forEach(index -> {
             Cell cell = rowHeader.createCell(index);
             cell.setCellValue(HEADERS[index]);
-            cell.setCellStyle(style);
+            cell.setCellStyle(headerStyle);
         });
     }
 
-    public InputStreamResource export() {
-        return generateReport();
+    public void addRow(Customer customer) {
+        Row row = sheet.createRow(rowIndex++);
+        setCell(row, 0, customer.getId());
+        setCell(row, 1, customer.getName());
+        setCell(row, 2, customer.getEmail());
+        setCell(row, 3, customer.getPhone());
+        setCell(row, 4, customer.getAddress());
+        setCell(row, 5, customer.getStatus());
+        setCell(row, 6, customer.getType());
+        setCell(row, 7, formatDate(customer.getCreatedAt()));
     }
 
-    private InputStreamResource generateReport() {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            CellStyle style = workbook.createCellStyle();
-            XSSFFont font = workbook.createFont();
-            font.setFontHeight(10);
-            style.setFont(font);
-            int rowIndex = 1;
-            for(Customer customer: customers) {
-                Row row = sheet.createRow(rowIndex++);
-                row.createCell(0).setCellValue(customer.getId());
-                row.createCell(1).setCellValue(customer.getName());
-                row.createCell(2).setCellValue(customer.getEmail());
-                row.createCell(3).setCellValue(customer.getPhone());
-                row.createCell(4).setCellValue(customer.getAddress());
-                row.createCell(5).setCellValue(customer.getStatus());
-                row.createCell(6).setCellValue(customer.getType());
-                row.createCell(7).setCellValue(format(customer.getCreatedAt(), DATE_FORMAT));
-            }
+    public void write(OutputStream out) {
+        try {
             workbook.write(out);
-            return new InputStreamResource(new ByteArrayInputStream(out.toByteArray()));
         } catch (Exception e) {
             log.error(e.getMessage());
             throw new ApiException("Unable to export excel file!!!!");
         }
     }
+
+    @Override
+    public void close() {
+        workbook.dispose();
+    }
+
+    private void setCell(Row row, int index, double value) {
+        Cell cell = row.createCell(index);
+        cell.setCellValue(value);
+        cell.setCellStyle(style);
+    }
+
+    private void setCell(Row row, int index, String value) {
+        Cell cell = row.createCell(index);
+        cell.setCellValue(value);
+        cell.setCellStyle(style);
+    }
+
+    private CellStyle createStyle(int height, boolean bold) {
+        CellStyle cellStyle = workbook.createCellStyle();
+        Font font = workbook.createFont();
+        font.setBold(bold);
+        font.setFontHeightInPoints((short) height);
+        cellStyle.setFont(font);
+        return cellStyle;
+    }
+
+    private String formatDate(Date date) {
+        return date == null ? "" : format(date, DATE_FORMAT);
+    }
 }
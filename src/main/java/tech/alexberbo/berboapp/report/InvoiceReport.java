@@ -4,35 +4,40 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.DateFormatUtils;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFFont;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.springframework.core.io.InputStreamResource;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import tech.alexberbo.berboapp.exception.ApiException;
 import tech.alexberbo.berboapp.model.Invoice;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.util.List;
+import java.io.Closeable;
+import java.io.OutputStream;
 
 import static java.util.stream.IntStream.range;
 
+/**
+ * Streaming invoice report, it works the same way as the CustomerReport.
+ * Only ROW_WINDOW rows are in memory, the rest is in a compressed temp file that is deleted when the report is closed.
+ */
 @Slf4j
-public class InvoiceReport {
-    private XSSFWorkbook workbook;
-    private XSSFSheet sheet;
-    private List<Invoice> invoices;
-    private static String[] HEADERS = { "ID", "Invoice Number", "Services", "Total", "Customer ID", "Customer Name", "Status", "Created At" };
+public class InvoiceReport implements Closeable {
+    private static final int ROW_WINDOW = 100;
+    private static final String[] HEADERS = { "ID", "Invoice Number", "Service ID", "Service Number", "Service Name", "Total", "Customer ID", "Customer Name", "Status", "Created At" };
     private static final String DATE_FORMAT = "yyyy-MM-dd hh:mm:ss";
+    private final SXSSFWorkbook workbook;
+    private final SXSSFSheet sheet;
+    private final CellStyle cellStyle;
+    private int rowNumber = 1;
 
     /**
-     * Setting our variables and declaring the objects
+     * Setting our variables and declaring the objects, the cell styles are created once and shared by all the cells
      * */
-    public InvoiceReport(List<Invoice> invoices) {
-        this.invoices = invoices;
-        this.workbook = new XSSFWorkbook();
+    public InvoiceReport() {
+        this.workbook = new SXSSFWorkbook(ROW_WINDOW);
+        this.workbook.setCompressTempFiles(true);
         this.sheet = workbook.createSheet("Invoices");
+        this.cellStyle = createStyle(10, false);
         setHeaders();
     }
 
@@ -41,56 +46,66 @@ public class InvoiceReport {
      * */
     private void setHeaders() {
         Row row = sheet.createRow(0);
-        CellStyle cellStyle = workbook.createCellStyle();
-        XSSFFont font = workbook.createFont();
-        font.setBold(true);
-        font.setFontHeight(14);
-        cellStyle.setFont(font);
+        CellStyle headerStyle = createStyle(14, true);
         range(0, HEADERS.length).forEach(index -> {
             Cell cell = row.createCell(index);
             cell.setCellValue(HEADERS[index]);
-            cell.setCellStyle(cellStyle);
+            cell.setCellStyle(headerStyle);
         });
     }
 
     /**
-     * Exposes the generateReport method
+     * For every invoice a new row is created and filled with the invoice data, the rows out of the window are flushed to disk.
      * */
-    public InputStreamResource export() {
-        return generateReport();
+    public void addRow(Invoice invoice) {
+        Row row = sheet.createRow(rowNumber++);
+        setCell(row, 0, invoice.getId());
+        setCell(row, 1, invoice.getInvoiceNumber());
+        setCell(row, 2, invoice.getServiceCustomer().getId());
+        setCell(row, 3, invoice.getServiceCustomer().getServiceCustomerNumber());
+        setCell(row, 4, invoice.getServiceCustomer().getName());
+        setCell(row, 5, "$" + invoice.getTotal());
+        setCell(row, 6, invoice.getCustomer().getId());
+        setCell(row, 7, invoice.getCustomer().getName());
+        setCell(row, 8, invoice.getStatus());
+        setCell(row, 9, invoice.getCreatedAt() == null ? "" : DateFormatUtils.format(invoice.getCreatedAt(), DATE_FORMAT));
     }
 
     /**
-     * Creating the cells, adding the style, and font.
-     * For every invoice/customer a new row and cell is created and filled with invoice/customer data of that iteration.
-     *
+     * Writes the file straight into the stream, for the download it is the response output stream.
      * */
-    private InputStreamResource generateReport() {
-        // ByteArrayOutputStream i don't understand
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            CellStyle cellStyle = workbook.createCellStyle();
-            XSSFFont font = workbook.createFont();
-            font.setFontHeight(10);
-            cellStyle.setFont(font);
-            int rowNumber = 1;
-            for(Invoice invoice: invoices) {
-                Row row = sheet.createRow(rowNumber++);
-                row.createCell(0).setCellValue(invoice.getId());
-                row.createCell(1).setCellValue(invoice.getInvoiceNumber());
-                row.createCell(2).setCellValue(invoice.getServiceCustomer().getId());
-                row.createCell(3).setCellValue(invoice.getServiceCustomer().getServiceCustomerNumber());
-                row.createCell(4).setCellValue(invoice.getServiceCustomer().getName());
-                row.createCell(5).setCellValue("$" + invoice.getTotal());
-                row.createCell(6).setCellValue(invoice.getCustomer().getId());
-                row.createCell(7).setCellValue(invoice.getCustomer().getName());
-                row.createCell(8).setCellValue(invoice.getStatus());
-                row.createCell(9).setCellValue(DateFormatUtils.format(invoice.getCreatedAt(), DATE_FORMAT));
-            }
+    public void write(OutputStream out) {
+        try {
             workbook.write(out);
-            return new InputStreamResource(new ByteArrayInputStream(out.toByteArray()));
         } catch (Exception e) {
             log.error(e.getMessage());
             throw new ApiException("Unable to download report!");
         }
     }
+
+    @Override
+    public void close() {
+        workbook.dispose();
+    }
+
+    private void setCell(Row row, int index, double value) {
+        Cell cell = row.createCell(index);
+        cell.setCellValue(value);
+        cell.setCellStyle(cellStyle);
+    }
+
+    private void setCell(Row row, int index, String value) {
+        Cell cell = row.createCell(index);
+        cell.setCellValue(value);
+        cell.setCellStyle(cellStyle);
+    }
+
+    private CellStyle createStyle(int height, boolean bold) {
+        CellStyle style = workbook.createCellStyle();
+        Font font = workbook.createFont();
+        font.setBold(bold);
+        font.setFontHeightInPoints((short) height);
+        style.setFont(font);
+        return style;
+    }
 }
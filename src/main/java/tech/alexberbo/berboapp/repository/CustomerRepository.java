@@ -2,10 +2,28 @@ package tech.alexberbo.berboapp.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import tech.alexberbo.berboapp.dto.CustomerSummary;
 import tech.alexberbo.berboapp.model.Customer;
 
+import java.util.List;
+import java.util.Optional;
+
+import static tech.alexberbo.berboapp.constant.query.CustomerQuery.SEARCH_CUSTOMERS_QUERY;
+
 public interface CustomerRepository extends PagingAndSortingRepository<Customer, Long>, ListCrudRepository<Customer, Long> {
-    Page<Customer> findByNameContaining(String name, Pageable page);
+    Page<CustomerSummary> findAllBy(Pageable page);
+    List<CustomerSummary> findAllBy();
+    Slice<CustomerSummary> findAllByOrderByIdDesc(Pageable page);
+    Slice<CustomerSummary> findByNameStartingWithOrderByName(String name, Pageable page);
+    @Query(value = SEARCH_CUSTOMERS_QUERY, nativeQuery = true)
+    Slice<CustomerSummary> searchByTerm(@Param("term") String term, Pageable page);
+    Slice<CustomerSummary> findByIdLessThanOrderByIdDesc(Long id, Pageable page);
+    @EntityGraph(attributePaths = { "invoices", "invoices.serviceCustomer" })
+    Optional<Customer> findWithInvoicesById(Long id);
 }
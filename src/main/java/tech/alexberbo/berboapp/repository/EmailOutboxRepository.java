@@ -0,0 +1,14 @@
+package tech.alexberbo.berboapp.repository;
+
+import tech.alexberbo.berboapp.model.OutboxEmail;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository {
+    void add(String recipient, String subject, String body);
+    List<OutboxEmail> claim(int size, int leaseSeconds);
+    void setSent(Collection<Long> ids);
+    void setRetry(Long id, long delaySeconds, String error);
+    void setFailed(Long id, String error);
+}
@@ -1,8 +1,12 @@
 package tech.alexberbo.berboapp.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.repository.ListCrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import tech.alexberbo.berboapp.dto.InvoiceSummary;
 import tech.alexberbo.berboapp.model.Invoice;
 
 public interface InvoiceRepository extends PagingAndSortingRepository<Invoice, Long>, ListCrudRepository<Invoice, Long> {
+    Slice<InvoiceSummary> findByIdLessThanOrderByIdDesc(Long id, Pageable page);
 }
@@ -1,10 +1,19 @@
 package tech.alexberbo.berboapp.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.repository.ListCrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
+import tech.alexberbo.berboapp.dto.ServiceSummary;
 import tech.alexberbo.berboapp.model.ServiceCustomer;
 
+import java.util.List;
+
 @Repository
 public interface ServiceCustomerRepository extends PagingAndSortingRepository<ServiceCustomer, Long>, ListCrudRepository<ServiceCustomer, Long> {
+    Page<ServiceSummary> findAllBy(Pageable page);
+    List<ServiceSummary> findAllBy();
+    Slice<ServiceSummary> findByIdLessThanOrderByIdDesc(Long id, Pageable page);
 }
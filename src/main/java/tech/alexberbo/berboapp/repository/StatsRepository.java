@@ -0,0 +1,10 @@
+package tech.alexberbo.berboapp.repository;
+
+import tech.alexberbo.berboapp.model.Stats;
+
+public interface StatsRepository {
+    Stats getStats();
+    void addCustomer();
+    void addInvoice(double total);
+    Stats reconcile();
+}
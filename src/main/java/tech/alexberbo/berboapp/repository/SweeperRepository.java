@@ -0,0 +1,7 @@
+package tech.alexberbo.berboapp.repository;
+
+public interface SweeperRepository {
+    int deleteExpiredTwoFactorCodes(int limit);
+    int deleteExpiredPasswordResetUrls(int limit);
+    int deleteExpiredAccountUrls(int limit);
+}
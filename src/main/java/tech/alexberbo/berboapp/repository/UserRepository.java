@@ -9,6 +9,7 @@ import tech.alexberbo.berboapp.exception.EmailExistsException;
 import tech.alexberbo.berboapp.exception.PasswordResetCodeExpiredException;
 import tech.alexberbo.berboapp.form.UpdateForm;
 import tech.alexberbo.berboapp.model.User;
+import tech.alexberbo.berboapp.model.UserPrincipal;
 
 import java.util.Collection;
 
@@ -16,8 +17,11 @@ public interface UserRepository<T extends User> {
     T register(T user) throws EmailExistsException;
     Page<T> getAllUsers(int page, int pageSize);
     T getUser(Long id);
+    boolean isUserActive(Long id);
     Boolean deleteUser(Long id);
     User getUserByEmail(String email);
+    UserPrincipal getUserWithRole(Long id);
+    UserPrincipal getUserWithRoleByEmail(String email);
     void sendVerificationCode(UserDTO userDTO);
     User verifyCode(String email, String code) throws CodeExpiredException;
     void resetPassword(String email) throws EmailDoesNotExistException;
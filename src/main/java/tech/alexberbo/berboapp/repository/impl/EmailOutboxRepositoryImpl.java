@@ -0,0 +1,62 @@
+package tech.alexberbo.berboapp.repository.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tech.alexberbo.berboapp.model.OutboxEmail;
+import tech.alexberbo.berboapp.repository.EmailOutboxRepository;
+import tech.alexberbo.berboapp.rowmapper.OutboxEmailRowMapper;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static tech.alexberbo.berboapp.constant.query.EmailOutboxQuery.*;
+
+/**
+    The emails are not sent by the request, they are added to the EmailOutbox table in the transaction of the caller,
+    so the email exists only if the user, code or url it talks about was committed, and it is not lost if the app stops.
+    The EmailOutboxDispatcher claims the due rows and marks them as sent, to be retried or failed.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EmailOutboxRepositoryImpl implements EmailOutboxRepository {
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    public void add(String recipient, String subject, String body) {
+        jdbc.update(INSERT_OUTBOX_EMAIL_QUERY, Map.of("recipient", recipient, "subject", subject, "body", body));
+    }
+
+    /**
+        Locks the due rows that no other dispatcher holds (SKIP LOCKED) and marks them as SENDING until the lease ends.
+        If the dispatcher dies while sending, the rows are due again when the lease ends and another one picks them up.
+     */
+    @Override
+    @Transactional
+    public List<OutboxEmail> claim(int size, int leaseSeconds) {
+        List<OutboxEmail> emails = jdbc.query(SELECT_DUE_OUTBOX_EMAILS_QUERY, Map.of("size", size), new OutboxEmailRowMapper());
+        if (!emails.isEmpty()) {
+            jdbc.update(CLAIM_OUTBOX_EMAILS_QUERY, Map.of("ids", emails.stream().map(OutboxEmail::getId).toList(), "lease", leaseSeconds));
+            emails.forEach(email -> email.setAttempts(email.getAttempts() + 1));
+        }
+        return emails;
+    }
+
+    @Override
+    public void setSent(Collection<Long> ids) {
+        if (!ids.isEmpty()) jdbc.update(UPDATE_OUTBOX_EMAILS_SENT_QUERY, Map.of("ids", ids));
+    }
+
+    @Override
+    public void setRetry(Long id, long delaySeconds, String error) {
+        jdbc.update(UPDATE_OUTBOX_EMAIL_RETRY_QUERY, Map.of("id", id, "delay", delaySeconds, "error", StringUtils.abbreviate(String.valueOf(error), 255)));
+    }
+
+    @Override
+    public void setFailed(Long id, String error) {
+        jdbc.update(UPDATE_OUTBOX_EMAIL_FAILED_QUERY, Map.of("id", id, "error", StringUtils.abbreviate(String.valueOf(error), 255)));
+    }
+}
@@ -3,8 +3,12 @@ package tech.alexberbo.berboapp.repository.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSourceUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tech.alexberbo.berboapp.cache.EventTypeRegistry;
 import tech.alexberbo.berboapp.enumerator.EventType;
+import tech.alexberbo.berboapp.event.PendingUserEvent;
 import tech.alexberbo.berboapp.model.Message;
 import tech.alexberbo.berboapp.model.UserEvent;
 import tech.alexberbo.berboapp.repository.EventRepository;
@@ -13,6 +17,8 @@ import tech.alexberbo.berboapp.rowmapper.UserEventRowMapper;
 import tech.alexberbo.berboapp.service.EmailService;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static java.time.LocalDateTime.now;
@@ -25,14 +31,15 @@ public class EventRepositoryImpl implements EventRepository {
     private final NamedParameterJdbcTemplate jdbc;
     private final EmailService emailService;
     private final MessageRepository messageRepository;
+    private final EventTypeRegistry eventTypeRegistry;
     @Override
     public Collection<UserEvent> getUserEventsByUserId(Long userId) {
-        return jdbc.query(SELECT_EVENTS_BY_USER_ID, Map.of("userId", userId), new UserEventRowMapper());
+        return jdbc.query(SELECT_EVENTS_BY_USER_ID, Map.of("userId", userId), new UserEventRowMapper(eventTypeRegistry));
     }
 
     @Override
     public void addUserEvent(String email, EventType type, String device, String ipAddress) {
-        jdbc.update(INSERT_USER_EVENT_BY_EMAIL_QUERY, Map.of("email", email, "type", type.name(), "device", device, "ipAddress", ipAddress));
+        jdbc.update(INSERT_USER_EVENT_BY_EMAIL_QUERY, Map.of("email", email, "eventId", eventTypeRegistry.getId(type), "device", device, "ipAddress", ipAddress));
     }
 
     @Override
@@ -40,12 +47,32 @@ public class EventRepositoryImpl implements EventRepository {
 
     }
 
+    /**
+     * One JDBC batch for the whole flush of the UserEventWriter, the ids are already resolved so there are no subqueries per row.
+     * With rewriteBatchedStatements on the MySQL driver sends the batch as one multi row insert.
+     * The batch is one transaction, so when the writer retries a failed batch no event is stored twice.
+     */
+    @Override
+    @Transactional
+    public void addUserEvents(List<PendingUserEvent> events) {
+        jdbc.batchUpdate(INSERT_USER_EVENT_QUERY, SqlParameterSourceUtils.createBatch(events));
+    }
+
+    @Override
+    public Map<String, Long> getUserIdsByEmails(Collection<String> emails) {
+        Map<String, Long> ids = new HashMap<>();
+        jdbc.query(SELECT_USER_IDS_BY_EMAILS_QUERY, Map.of("emails", emails),
+                resultSet -> { ids.put(resultSet.getString("email").toLowerCase(), resultSet.getLong("user_id")); });
+        return ids;
+    }
+
     @Override
     public UserEvent getUserEvent(Long id) {
-        return jdbc.queryForObject(SELECT_EVENT_BY_ID, Map.of("id", id), new UserEventRowMapper());
+        return jdbc.queryForObject(SELECT_EVENT_BY_ID, Map.of("id", id), new UserEventRowMapper(eventTypeRegistry));
     }
 
     @Override
+    @Transactional
     public void sendMessage(Message message, String email) {
         message.setCreatedAt(now());
         message.setUserEmail(email);
@@ -5,14 +5,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import tech.alexberbo.berboapp.cache.RoleCatalog;
+import tech.alexberbo.berboapp.cache.UserCache;
 import tech.alexberbo.berboapp.exception.ApiException;
 import tech.alexberbo.berboapp.model.Role;
 import tech.alexberbo.berboapp.repository.RoleRepository;
-import tech.alexberbo.berboapp.rowmapper.RoleRowMapper;
 
 import java.util.Collection;
 import java.util.Map;
-import java.util.Objects;
 
 import static tech.alexberbo.berboapp.constant.query.RoleQuery.*;
 
@@ -25,20 +25,19 @@ import static tech.alexberbo.berboapp.constant.query.RoleQuery.*;
 @Slf4j
 public class RoleRepositoryImpl implements RoleRepository<Role> {
     private final NamedParameterJdbcTemplate jdbc;
+    private final UserCache userCache;
+    private final RoleCatalog roleCatalog;
     @Override
     public Role createRole(Role data) {
         return null;
     }
 
+    /**
+        The roles come from the RoleCatalog, they are loaded from the database only when the app starts or the roles change.
+     */
     @Override
     public Collection<Role> getAllRoles() {
-        log.info("Fetching all roles!");
-        try {
-            return jdbc.query(SELECT_ROLES_QUERY, new RoleRowMapper());
-        } catch (Exception e) {
-            log.info(e.getMessage());
-            throw new ApiException("An Error occurred please try again!");
-        }
+        return roleCatalog.getRoles();
     }
 
     @Override
@@ -50,8 +49,10 @@ public class RoleRepositoryImpl implements RoleRepository<Role> {
     public void updateRole(Long userId, String roleName) {
         log.info("Updating user role!");
         try {
-            Role role = jdbc.queryForObject(SELECT_ROLE_BY_NAME_QUERY, Map.of("roleName", roleName), new RoleRowMapper());
-            jdbc.update(UPDATE_USER_ROLE_QUERY, Map.of("userId", userId, "roleId", Objects.requireNonNull(role).getId()));
+            Role role = getRoleByName(roleName);
+            jdbc.update(UPDATE_USER_ROLE_QUERY, Map.of("userId", userId, "roleId", role.getId()));
+            roleCatalog.setUserRole(userId, role.getId());
+            userCache.invalidate(userId);
         } catch (EmptyResultDataAccessException e) {
             log.info(e.getMessage());
             throw new ApiException("User role by name not found: " + roleName);
@@ -75,8 +76,9 @@ public class RoleRepositoryImpl implements RoleRepository<Role> {
     public void setUserRole(Long userId, String roleName) {
         log.info("Adding user role by user id: " + userId + " and role name: " + roleName);
         try {
-            Role role = jdbc.queryForObject(SELECT_ROLE_BY_NAME_QUERY, Map.of("roleName", roleName), new RoleRowMapper());
-            jdbc.update(INSERT_ROLE_INTO_USER_QUERY, Map.of("userId", userId, "roleId", Objects.requireNonNull(role).getId()));
+            Role role = getRoleByName(roleName);
+            jdbc.update(INSERT_ROLE_INTO_USER_QUERY, Map.of("userId", userId, "roleId", role.getId()));
+            roleCatalog.setUserRole(userId, role.getId());
         } catch (EmptyResultDataAccessException e) {
             log.info(e.getMessage());
             throw new ApiException("User role not found");
@@ -84,14 +86,12 @@ public class RoleRepositoryImpl implements RoleRepository<Role> {
     }
 
     /**
-        This one is a bit complicated, the query to be exact.
-        The query is returning the role by user id, so we join all 3 tables and search for that user id, and then we get it back from the database.
+        The role is served from the RoleCatalog, only the role id of a user that is not in the catalog yet is read from the UserRoles table.
      */
     @Override
     public Role getRoleByUserId(Long id) {
-        log.info("Adding user role by user id: " + id);
         try {
-            return jdbc.queryForObject(SELECT_ROLE_BY_USER_ID_QUERY, Map.of("userId", id), new RoleRowMapper());
+            return roleCatalog.getRoleByUserId(id, userId -> jdbc.queryForObject(SELECT_ROLE_ID_BY_USER_ID_QUERY, Map.of("userId", userId), Long.class));
         } catch (EmptyResultDataAccessException e) {
             log.info(e.getMessage());
             throw new ApiException("User role by user id not found: " + id);
@@ -107,4 +107,17 @@ public class RoleRepositoryImpl implements RoleRepository<Role> {
     public void updateUserRole(Long userId, String roleName) {
 
     }
+
+    /**
+        Role from the catalog, a role that was added to the database after the catalog was loaded refreshes the catalog.
+     */
+    private Role getRoleByName(String roleName) {
+        Role role = roleCatalog.getRole(roleName);
+        if (role == null) {
+            roleCatalog.refresh();
+            role = roleCatalog.getRole(roleName);
+        }
+        if (role == null) throw new EmptyResultDataAccessException(1);
+        return role;
+    }
 }
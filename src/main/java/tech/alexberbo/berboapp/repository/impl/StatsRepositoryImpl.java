@@ -0,0 +1,63 @@
+package tech.alexberbo.berboapp.repository.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tech.alexberbo.berboapp.model.Stats;
+import tech.alexberbo.berboapp.repository.StatsRepository;
+import tech.alexberbo.berboapp.rowmapper.StatsRowMapper;
+
+import java.util.Map;
+
+import static org.springframework.transaction.annotation.Isolation.REPEATABLE_READ;
+import static tech.alexberbo.berboapp.constant.query.StatsQuery.*;
+
+/**
+    The dashboard counters live in the one row DashboardStats table, so reading them is a primary key lookup
+    instead of counting and summing the customer and invoice tables on every page view.
+    The add methods run in the transaction of the service that creates the customer or the invoice,
+    so the counters are committed or rolled back together with the new row.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class StatsRepositoryImpl implements StatsRepository {
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    public Stats getStats() {
+        return jdbc.queryForObject(SELECT_DASHBOARD_STATS_QUERY, Map.of(), new StatsRowMapper());
+    }
+
+    @Override
+    public void addCustomer() {
+        jdbc.update(INCREMENT_DASHBOARD_STATS_QUERY, Map.of("customers", 1, "invoices", 0, "billed", 0));
+    }
+
+    @Override
+    public void addInvoice(double total) {
+        jdbc.update(INCREMENT_DASHBOARD_STATS_QUERY, Map.of("customers", 0, "invoices", 1, "billed", total));
+    }
+
+    /**
+        Recounts the source tables without locking anything, then adds the difference to the counters.
+        The counters and the tables are read from the same repeatable read snapshot, so they agree on which customers and invoices exist,
+        and the ones created during the recount are added by their own increment and not touched by the difference.
+        The counters row is only locked by the last update, until the commit right after it.
+     */
+    @Override
+    @Transactional(isolation = REPEATABLE_READ)
+    public Stats reconcile() {
+        Stats current = jdbc.queryForObject(SELECT_DASHBOARD_COUNTERS_QUERY, Map.of(), new StatsRowMapper());
+        Stats stats = jdbc.queryForObject(RECOUNT_STATS_QUERY, Map.of(), new StatsRowMapper());
+        if (current.getTotalCustomers() != stats.getTotalCustomers() || current.getTotalInvoices() != stats.getTotalInvoices()) {
+            log.warn("Dashboard stats were off, customers {} -> {}, invoices {} -> {}", current.getTotalCustomers(),
+                    stats.getTotalCustomers(), current.getTotalInvoices(), stats.getTotalInvoices());
+        }
+        jdbc.update(RECONCILE_DASHBOARD_STATS_QUERY, Map.of("customers", stats.getTotalCustomers() - current.getTotalCustomers(),
+                "invoices", stats.getTotalInvoices() - current.getTotalInvoices(), "billed", stats.getTotalBilled() - current.getTotalBilled()));
+        return stats;
+    }
+}
@@ -0,0 +1,34 @@
+package tech.alexberbo.berboapp.repository.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import tech.alexberbo.berboapp.repository.SweeperRepository;
+
+import java.util.Map;
+
+import static tech.alexberbo.berboapp.constant.query.SweeperQuery.*;
+
+/**
+    Every call deletes at most limit expired rows in its own short transaction, so the locks are held only for one chunk.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SweeperRepositoryImpl implements SweeperRepository {
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    public int deleteExpiredTwoFactorCodes(int limit) {
+        return jdbc.update(DELETE_EXPIRED_TWO_FACTOR_CODES_QUERY, Map.of("limit", limit));
+    }
+
+    @Override
+    public int deleteExpiredPasswordResetUrls(int limit) {
+        return jdbc.update(DELETE_EXPIRED_PASSWORD_RESET_URLS_QUERY, Map.of("limit", limit));
+    }
+
+    @Override
+    public int deleteExpiredAccountUrls(int limit) {
+        return jdbc.update(DELETE_EXPIRED_ACCOUNT_URLS_QUERY, Map.of("limit", limit));
+    }
+}
@@ -3,6 +3,7 @@ package tech.alexberbo.berboapp.repository.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.DateFormatUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
@@ -12,12 +13,15 @@ import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tech.alexberbo.berboapp.cache.RoleCatalog;
 import tech.alexberbo.berboapp.dto.UserDTO;
 import tech.alexberbo.berboapp.enumerator.VerificationType;
 import tech.alexberbo.berboapp.event.NewUserEvent;
@@ -28,17 +32,15 @@ import tech.alexberbo.berboapp.model.User;
 import tech.alexberbo.berboapp.model.UserPrincipal;
 import tech.alexberbo.berboapp.repository.RoleRepository;
 import tech.alexberbo.berboapp.repository.UserRepository;
+import tech.alexberbo.berboapp.rowmapper.UserPrincipalRowMapper;
 import tech.alexberbo.berboapp.rowmapper.UserRowMapper;
 import tech.alexberbo.berboapp.service.EmailService;
+import tech.alexberbo.berboapp.util.ImageProcessor;
+import tech.alexberbo.berboapp.verification.VerificationCodeStore;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
 import static org.apache.commons.lang3.time.DateUtils.addDays;
 import static tech.alexberbo.berboapp.constant.exception.ExceptionConstants.*;
@@ -56,13 +58,18 @@ import static tech.alexberbo.berboapp.enumerator.VerificationType.PASSWORD;
 @Repository
 @RequiredArgsConstructor
 @Slf4j
-public class UserRepositoryImpl implements UserRepository<User>, UserDetailsService {
+public class UserRepositoryImpl implements UserRepository<User>, UserDetailsService, UserDetailsPasswordService {
     private static final String DATE_FORMAT = "yyyy-MM-dd hh-mm-ss";
     private final NamedParameterJdbcTemplate jdbc;
     private final RoleRepository<Role> roleRepository;
+    private final RoleCatalog roleCatalog;
     private final EmailService emailService;
-    private final BCryptPasswordEncoder encoder;
+    private final VerificationCodeStore verificationCodeStore;
+    private final ImageProcessor imageProcessor;
+    private final PasswordEncoder encoder;
     private final ApplicationEventPublisher publisher;
+    @Value("${account-verification.ttl:604800000}")
+    private long accountVerificationTtl;
 
     /**
      * This method is from the UserDetailsService, when the user logs in, it loads the user by username, in this case by email.
@@ -70,16 +77,27 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
      */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = getUserByEmail(email);
-        if (user == null) {
+        UserPrincipal userPrincipal = getUserWithRoleByEmail(email);
+        if (userPrincipal == null) {
             log.error("User with email: " + email + " not found!");
             throw new UsernameNotFoundException("User with email: " + email + " not found!");
         } else {
-            log.info("User found: " + user.getFirstName() + " " + user.getLastName() + ".");
-            return new UserPrincipal(user, roleRepository.getRoleByUserId(user.getId()));
+            log.info("User found: " + email + ".");
+            return userPrincipal;
         }
     }
 
+    /**
+     * From the UserDetailsPasswordService, called by the login when the stored hash has a lower work factor than the encoder.
+     * The new hash is saved and the user is loaded again with it.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        jdbc.update(UPDATE_PASSWORD_BY_EMAIL_QUERY, Map.of("password", newPassword, "email", user.getUsername()));
+        log.info("Password hash of {} upgraded", user.getUsername());
+        return loadUserByUsername(user.getUsername());
+    }
+
     /**
      * This is where the register logic is implemented. Firstly I checked if the user that is registering is already registered.
      * Then, if that is not true, I proceeded with the creation of the new user.
@@ -93,19 +111,18 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
      * User is set as not enabled, because he has to confirm his email first.
      */
     @Override
+    @Transactional
     public User register(User user) throws EmailExistsException {
         if (getEmailCount(user.getEmail().trim().toLowerCase()) > 0) {
-            throw new EmailExistsException(EMAIL_EXISTS);
+            return resendAccountVerification(user);
         }
+        SqlParameterSource parameter = getSqlParameterSource(user);
         try {
             KeyHolder holder = new GeneratedKeyHolder();
-            SqlParameterSource parameter = getSqlParameterSource(user);
             jdbc.update(INSERT_USER_QUERY, parameter, holder);
             user.setId(Objects.requireNonNull(holder.getKey()).longValue());
             roleRepository.setUserRole(user.getId(), ROLE_USER.name());
-            String verificationUrl = getVerificationUrl(UUID.randomUUID().toString(), ACCOUNT.getType().toLowerCase());
-            jdbc.update(INSERT_ACCOUNT_VERIFICATION_URL_QUERY, Map.of("userId", user.getId(), "url", verificationUrl));
-            sendEmail(user.getEmail(), user.getFirstName(), verificationUrl, ACCOUNT);
+            sendAccountVerification(user);
             // sendTwoFactorAuthCode();
             user.setEnabled(false);
             user.setNotLocked(true);
@@ -116,6 +133,38 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
         }
     }
 
+    /**
+     * Registering again with the email of an account that was never verified sends a new verification link, which replaces the old one.
+     * Without it a user whose link expired (and was swept) could neither verify, log in nor register again.
+     * The names and the password of the unverified account are replaced by the ones of the new registration first, in the same transaction,
+     * so whoever registered the email before the owner can't log in with their password once the owner verifies it.
+     */
+    private User resendAccountVerification(User user) throws EmailExistsException {
+        List<Long> ids = jdbc.queryForList(SELECT_UNVERIFIED_USER_ID_BY_EMAIL_QUERY, Map.of("email", user.getEmail().trim().toLowerCase()), Long.class);
+        if (ids.isEmpty()) throw new EmailExistsException(EMAIL_EXISTS);
+        user.setId(ids.get(0));
+        // verified in the meantime
+        if (jdbc.update(UPDATE_UNVERIFIED_USER_QUERY, getSqlParameterSource(user).addValue("id", user.getId())) == 0) {
+            throw new EmailExistsException(EMAIL_EXISTS);
+        }
+        try {
+            sendAccountVerification(user);
+            user.setEnabled(false);
+            user.setNotLocked(true);
+            log.info("Unverified user {} registered again, new verification link sent", user.getId());
+            return user;
+        } catch (Exception e) {
+            log.info(e.getMessage());
+            throw new ApiException("An Error occurred, please try again later.");
+        }
+    }
+
+    private void sendAccountVerification(User user) {
+        String verificationUrl = getVerificationUrl(UUID.randomUUID().toString(), ACCOUNT.getType().toLowerCase());
+        jdbc.update(UPSERT_ACCOUNT_VERIFICATION_URL_QUERY, Map.of("userId", user.getId(), "url", verificationUrl, "ttl", accountVerificationTtl / 1000));
+        emailService.sendVerifyEmail(user.getEmail(), user.getFirstName(), verificationUrl, ACCOUNT);
+    }
+
     @Override
     public Page<User> getAllUsers(int page, int pageSize) {
         return null;
@@ -136,6 +185,19 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
         }
     }
 
+    /**
+     * Only the enabled and non locked flags of the user, used by the JWT provider to check
+     * if the user of a token built from claims was disabled or locked in the meantime.
+     */
+    @Override
+    public boolean isUserActive(Long id) {
+        try {
+            return Boolean.TRUE.equals(jdbc.queryForObject(SELECT_USER_ACTIVE_BY_ID_QUERY, Map.of("id", id), Boolean.class));
+        } catch (EmptyResultDataAccessException e) {
+            throw new ApiException("No user found with id: " + id);
+        }
+    }
+
     @Override
     public Boolean deleteUser(Long id) {
         return null;
@@ -156,21 +218,45 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
         }
     }
 
+    /**
+     * The user and his role are loaded in one query, joining the Users, UserRoles and Roles tables,
+     * instead of loading the user first and then his role with a second query.
+     */
+    @Override
+    public UserPrincipal getUserWithRole(Long id) {
+        try {
+            return jdbc.queryForObject(SELECT_USER_WITH_ROLE_BY_ID_QUERY, Map.of("id", id), new UserPrincipalRowMapper(roleCatalog));
+        } catch (EmptyResultDataAccessException e) {
+            throw new ApiException("No user found with id: " + id);
+        } catch (Exception e) {
+            throw new ApiException("An Error occurred");
+        }
+    }
+
+    @Override
+    public UserPrincipal getUserWithRoleByEmail(String email) {
+        try {
+            return jdbc.queryForObject(SELECT_USER_WITH_ROLE_BY_EMAIL_QUERY, Map.of("email", email), new UserPrincipalRowMapper(roleCatalog));
+        } catch (EmptyResultDataAccessException e) {
+            throw new ApiException("No user found with email: " + email);
+        } catch (Exception e) {
+            throw new ApiException("An Error occurred");
+        }
+    }
+
     /**
      * Verification code for MFA is generated here and also sent to the user by email.
      * Code has its own settings which are also set here.
-     * Email is sent using my email configuration that can be seen in the config package.
+     * The email is added to the email outbox in the same transaction as the code, the dispatcher sends it in the background.
      */
     @Override
+    @Transactional
     public void sendVerificationCode(UserDTO user) {
         String verificationCode = randomAlphanumeric(10).toUpperCase();
-        String expirationDate = DateFormatUtils.format(addDays(new Date(), 1), DATE_FORMAT);
         try {
-            jdbc.update(DELETE_FROM_ACCOUNT_VERIFICATION_QUERY, Map.of("userId", user.getId()));
-            jdbc.update(INSERT_ACCOUNT_VERIFICATION_CODE_QUERY, Map.of("userId", user.getId(), "code", verificationCode, "expirationDate", expirationDate));
+            verificationCodeStore.save(user.getId(), verificationCode);
             emailService.sendTwoFactorCode(user.getFirstName(), user.getEmail(), verificationCode);
         } catch (Exception e) {
-            jdbc.update(DELETE_FROM_ACCOUNT_VERIFICATION_QUERY, Map.of("userId", user.getId()));
             log.info(e.getMessage());
             throw new ApiException("An error occurred");
         }
@@ -178,31 +264,22 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
 
     /**
      * Implementation of the code verification.
-     * If the code is not expired, the logic will proceed onto the next verification pattern.
-     * If the user that is trying to verify the code is the same as the one that the code belongs to
-     * aka when the code was generated it was generated only for that user, and that data is saved in the Database,
-     * meaning the code belongs only to this user until he verifies it or the code expires.
-     * If the check for ownership is good, the app will grant access and complete the MFA.
+     * The code belongs only to the user it was generated for, so the store is asked for the code of the user with this email,
+     * which checks the code and removes it in one step. A wrong code counts as an attempt, too many wrong codes remove it,
+     * and the user has to log in again to get a new one.
+     * If the check is good, the app will grant access and complete the MFA.
      */
     @Override
     public User verifyCode(String email, String code) throws CodeExpiredException {
-        if (isVerificationCodeExpired(code)) throw new CodeExpiredException(CODE_EXPIRED);
-        try {
-            User userByCode = jdbc.queryForObject(SELECT_USER_BY_CODE_QUERY, Map.of("code", code), new UserRowMapper());
-            User userByEmail = jdbc.queryForObject(SELECT_USER_BY_EMAIL_QUERY, Map.of("email", email), new UserRowMapper());
-            if (userByCode.getEmail().equalsIgnoreCase(userByEmail.getEmail())) {
-                jdbc.update(DELETE_CODE_QUERY, Map.of("code", code));
+        User user = getUserByEmail(email);
+        switch (verificationCodeStore.verify(user.getId(), code)) {
+            case VALID -> {
                 publisher.publishEvent(new NewUserEvent(email, LOGIN_ATTEMPT_SUCCESS));
-                return userByCode;
-            } else {
-                throw new ApiException("Code is invalid, please try again!");
+                return user;
             }
-        } catch (EmptyResultDataAccessException e) {
-            log.info(e.getMessage());
-            throw new ApiException("No results found!");
-        } catch (Exception e) {
-            log.info(e.getMessage());
-            throw new ApiException("An error occurred!");
+            case EXPIRED -> throw new CodeExpiredException(CODE_EXPIRED);
+            case TOO_MANY_ATTEMPTS -> throw new ApiException("Too many attempts, please login again!");
+            default -> throw new ApiException("Code is invalid, please try again!");
         }
     }
 
@@ -211,6 +288,7 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
      * then when the user sends a request via link, it will send him to the next method to verify that link: verifyVerificationURL(String url)
      */
     @Override
+    @Transactional
     public void resetPassword(String email) throws EmailDoesNotExistException {
         if (getEmailCount(email) <= 0) throw new EmailDoesNotExistException(EMAIL_DOES_NOT_EXIST);
         try {
@@ -219,7 +297,7 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
             User user = getUserByEmail(email);
             jdbc.update(DELETE_PASSWORD_VERIFICATION_URL_BY_USER_ID, Map.of("userId", user.getId()));
             jdbc.update(INSERT_PASSWORD_VERIFICATION_URL, Map.of("userId", user.getId(), "url", verificationUrl, "expirationDate", expirationDate));
-            sendEmail(user.getEmail(), user.getFirstName(), verificationUrl, PASSWORD);
+            emailService.sendVerifyEmail(user.getEmail(), user.getFirstName(), verificationUrl, PASSWORD);
             log.info("URL: " + verificationUrl);
         } catch (Exception e) {
             throw new ApiException("An error occurred! Please try again or contact berbo99@gmail.com");
@@ -252,8 +330,9 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
     @Override
     public void resetPassword(Long userId, String newPassword, String confirmNewPassword) {
         if (!newPassword.equals(confirmNewPassword)) throw new ApiException("Passwords do not match, try again.");
+        String password = encoder.encode(newPassword);
         try {
-            jdbc.update(UPDATE_USER_PASSWORD_BY_USER_ID_QUERY, Map.of("userId", userId, "newPassword", encoder.encode(newPassword)));
+            jdbc.update(UPDATE_USER_PASSWORD_BY_USER_ID_QUERY, Map.of("userId", userId, "newPassword", password));
             jdbc.update(DELETE_PASSWORD_VERIFICATION_URL_BY_USER_ID, Map.of("userId", userId));
         } catch (Exception e) {
             log.error(e.getMessage());
@@ -266,10 +345,12 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
      * The link to the confirmation is sent in the register method when the user successfully registers to the app.
      */
     @Override
+    @Transactional
     public User verifyAccount(String key) {
         try {
             User user = jdbc.queryForObject(SELECT_USER_BY_ACC_URL_QUERY, Map.of("url", getVerificationUrl(key, ACCOUNT.getType().toLowerCase())), new UserRowMapper());
-            jdbc.update(UPDATE_USER_ENABLED_QUERY, Map.of("enabled", true, "userId", user.getId()));
+            jdbc.update(UPDATE_USER_VERIFIED_QUERY, Map.of("userId", user.getId()));
+            jdbc.update(DELETE_ACCOUNT_VERIFICATION_URL_QUERY, Map.of("userId", user.getId()));
             return user;
         } catch (EmptyResultDataAccessException e) {
             log.error(e.getMessage());
@@ -306,8 +387,9 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
         }
         User user = getUser(id);
         if (encoder.matches(currentPassword, user.getPassword())) {
+            String password = encoder.encode(newPassword);
             try {
-                jdbc.update(UPDATE_PASSWORD_QUERY, Map.of("password", encoder.encode(newPassword), "userId", user.getId()));
+                jdbc.update(UPDATE_PASSWORD_QUERY, Map.of("password", password, "userId", user.getId()));
             } catch (Exception e) {
                 log.info(e.getMessage());
                 throw new ApiException("Something went wrong, please try again!");
@@ -354,47 +436,28 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
      */
     @Override
     public void updateImage(UserDTO user, MultipartFile image) {
-        String imageUrl = setImageUrl(user.getEmail());
-        saveImage(user.getEmail(), image);
+        String imageUrl = setImageUrl(saveImage(image));
         jdbc.update(UPDATE_USER_IMAGE_QUERY, Map.of("userId", user.getId(), "imageUrl", imageUrl));
     }
 
-    private void sendEmail(String email, String firstName, String verificationUrl, VerificationType verificationType) {
-        CompletableFuture.runAsync(() -> emailService.sendVerifyEmail(email, firstName, verificationUrl, verificationType));
-    }
-
     /**
-     * Pattern for: Creating a directory for user's profile images, and saving those images there.
-     * Using the Path interface to set a path for the photo
-     * If the path does not exist we create one
-     * Then we copy the image bytes into the path, and replace existing image if there is one.
-     * The image is stored on this device, and the url that is stored in the DB has access to this image
+     * The upload is turned into thumbnails by the ImageProcessor and stored on this device by content hash,
+     * the url that is stored in the DB points to the thumbnail size that the frontend shows.
      */
-    private void saveImage(String email, MultipartFile image) {
-        Path path = Paths.get(System.getProperty("user.home") + "/berbogram/images").toAbsolutePath().normalize();
-        if (!Files.exists(path)) {
-            try {
-                Files.createDirectories(path);
-            } catch (IOException e) {
-                log.error(e.getMessage());
-                throw new RuntimeException("Could not create a directory for updating the image!");
-            }
-            log.info("Directory created! {}", path);
-        }
+    private String saveImage(MultipartFile image) {
         try {
-            Files.copy(image.getInputStream(), path.resolve(email + ".png"), REPLACE_EXISTING);
-        } catch (Exception e) {
+            return imageProcessor.process(image.getBytes());
+        } catch (IOException e) {
             log.error(e.getMessage());
-            throw new ApiException("Could not create a directory for updating the image!");
+            throw new ApiException("Could not save the image!");
         }
-        log.info("File saved in {}", path);
     }
 
     /**
      * Setting the image URL to be saved in the database
      */
-    private String setImageUrl(String email) {
-        return ServletUriComponentsBuilder.fromCurrentContextPath().path("/user/image/" + email + ".png").toUriString();
+    private String setImageUrl(String fileName) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath().path("/user/image/" + fileName).toUriString();
     }
 
     /**
@@ -412,20 +475,6 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
         }
     }
 
-    /**
-     * Simple check if the verification MFA code is expired.
-     */
-    private Boolean isVerificationCodeExpired(String code) {
-        try {
-            return jdbc.queryForObject(SELECT_CODE_EXPIRATION_QUERY, Map.of("code", code), Boolean.class);
-        } catch (EmptyResultDataAccessException e) {
-            log.info(e.getMessage());
-            throw new ApiException("Code is not valid, please login again!");
-        } catch (Exception e) {
-            log.info(e.getMessage());
-            throw new ApiException("An error occurred!");
-        }
-    }
 
     /**
      * Get the email count of a specific email.
@@ -440,7 +489,7 @@ public class UserRepositoryImpl implements UserRepository<User>, UserDetailsServ
      * These are the parameters that are passed into the register method as a form from the frontend.
      * The required information for creating a new user.
      */
-    private SqlParameterSource getSqlParameterSource(User user) {
+    private MapSqlParameterSource getSqlParameterSource(User user) {
         return new MapSqlParameterSource()
                 .addValue("firstName", user.getFirstName())
                 .addValue("lastName", user.getLastName())
@@ -0,0 +1,26 @@
+package tech.alexberbo.berboapp.rowmapper;
+
+import org.springframework.jdbc.core.RowMapper;
+import tech.alexberbo.berboapp.model.Customer;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+    Customer columns without the invoices, used by the customer report.
+ */
+public class CustomerRowMapper implements RowMapper<Customer> {
+    @Override
+    public Customer mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        return Customer.builder()
+                .id(resultSet.getLong("id"))
+                .name(resultSet.getString("name"))
+                .email(resultSet.getString("email"))
+                .phone(resultSet.getString("phone"))
+                .address(resultSet.getString("address"))
+                .status(resultSet.getString("status"))
+                .type(resultSet.getString("type"))
+                .createdAt(resultSet.getTimestamp("created_at"))
+                .build();
+    }
+}
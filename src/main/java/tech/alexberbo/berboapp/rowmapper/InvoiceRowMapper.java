@@ -0,0 +1,34 @@
+package tech.alexberbo.berboapp.rowmapper;
+
+import org.springframework.jdbc.core.RowMapper;
+import tech.alexberbo.berboapp.model.Customer;
+import tech.alexberbo.berboapp.model.Invoice;
+import tech.alexberbo.berboapp.model.ServiceCustomer;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+    Invoice joined with its service and customer, only the columns that the invoice report shows.
+ */
+public class InvoiceRowMapper implements RowMapper<Invoice> {
+    @Override
+    public Invoice mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        return Invoice.builder()
+                .id(resultSet.getLong("id"))
+                .invoiceNumber(resultSet.getString("invoice_number"))
+                .total(resultSet.getDouble("total"))
+                .status(resultSet.getString("status"))
+                .createdAt(resultSet.getTimestamp("created_at"))
+                .serviceCustomer(ServiceCustomer.builder()
+                        .id(resultSet.getLong("service_customer_id"))
+                        .serviceCustomerNumber(resultSet.getString("service_customer_number"))
+                        .name(resultSet.getString("service_name"))
+                        .build())
+                .customer(Customer.builder()
+                        .id(resultSet.getLong("customer_id"))
+                        .name(resultSet.getString("customer_name"))
+                        .build())
+                .build();
+    }
+}
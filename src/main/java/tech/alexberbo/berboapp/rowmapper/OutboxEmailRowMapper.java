@@ -0,0 +1,21 @@
+package tech.alexberbo.berboapp.rowmapper;
+
+import org.springframework.jdbc.core.RowMapper;
+import tech.alexberbo.berboapp.model.OutboxEmail;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class OutboxEmailRowMapper implements RowMapper<OutboxEmail> {
+    @Override
+    public OutboxEmail mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        return OutboxEmail.builder()
+                .id(resultSet.getLong("id"))
+                .recipient(resultSet.getString("recipient"))
+                .subject(resultSet.getString("subject"))
+                .body(resultSet.getString("body"))
+                .attempts(resultSet.getInt("attempts"))
+                .createdAt(resultSet.getTimestamp("created_at").toLocalDateTime())
+                .build();
+    }
+}
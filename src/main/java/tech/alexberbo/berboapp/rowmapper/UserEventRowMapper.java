@@ -1,18 +1,28 @@
 package tech.alexberbo.berboapp.rowmapper;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.RowMapper;
+import tech.alexberbo.berboapp.cache.EventTypeRegistry;
+import tech.alexberbo.berboapp.enumerator.EventType;
 import tech.alexberbo.berboapp.model.UserEvent;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+/**
+ * Type and description come from the EventType enum through the registry, so the Events table is not joined.
+ */
+@RequiredArgsConstructor
 public class UserEventRowMapper implements RowMapper<UserEvent> {
+    private final EventTypeRegistry eventTypeRegistry;
+
     @Override
     public UserEvent mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        EventType type = eventTypeRegistry.getType(resultSet.getLong("event_id"));
         return UserEvent.builder()
                 .id(resultSet.getLong("id"))
-                .type(resultSet.getString("type"))
-                .description(resultSet.getString("description"))
+                .type(type.name())
+                .description(type.getDescription())
                 .ipAddress(resultSet.getString("ip_address"))
                 .device(resultSet.getString("device"))
                 .createdAt(resultSet.getTimestamp("created_at").toLocalDateTime())
@@ -0,0 +1,34 @@
+package tech.alexberbo.berboapp.rowmapper;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import tech.alexberbo.berboapp.cache.RoleCatalog;
+import tech.alexberbo.berboapp.model.Role;
+import tech.alexberbo.berboapp.model.User;
+import tech.alexberbo.berboapp.model.UserPrincipal;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+    This maps a joined Users, UserRoles and Roles result set into the user together with his role.
+    The role is taken from the RoleCatalog so the principal uses the precomputed authorities, and the user role is remembered there.
+ */
+@RequiredArgsConstructor
+public class UserPrincipalRowMapper implements RowMapper<UserPrincipal> {
+    private final UserRowMapper userRowMapper = new UserRowMapper();
+    private final RoleRowMapper roleRowMapper = new RoleRowMapper();
+    private final RoleCatalog roleCatalog;
+
+    @Override
+    public UserPrincipal mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        User user = userRowMapper.mapRow(resultSet, rowNum);
+        Role role = roleCatalog.getRole(resultSet.getLong("role_id"));
+        if (role == null) {
+            role = roleRowMapper.mapRow(resultSet, rowNum);
+        } else {
+            roleCatalog.setUserRole(user.getId(), role.getId());
+        }
+        return new UserPrincipal(user, role);
+    }
+}
@@ -1,15 +1,23 @@
 package tech.alexberbo.berboapp.service;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import tech.alexberbo.berboapp.dto.CustomerSummary;
 import tech.alexberbo.berboapp.model.Customer;
+import tech.alexberbo.berboapp.model.CursorPage;
 import tech.alexberbo.berboapp.model.Stats;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface CustomerService {
     Customer createCustomer(Customer customer);
     Customer updateCustomer(Customer customer);
     Customer getCustomer(Long id);
-    Page<Customer> getCustomers(int page, int size);
-    Page<Customer> searchCustomers(String name, int page, int size);
-    Iterable<Customer> getCustomers();
+    Page<CustomerSummary> getCustomers(int page, int size);
+    CursorPage<CustomerSummary> getCustomers(String after, int size);
+    Slice<CustomerSummary> searchCustomers(String name, int page, int size);
+    List<CustomerSummary> getCustomers();
+    void streamCustomers(Consumer<Customer> consumer);
     Stats getStats();
 }
@@ -1,15 +1,19 @@
 package tech.alexberbo.berboapp.service;
 
 import org.springframework.data.domain.Page;
+import tech.alexberbo.berboapp.dto.InvoiceSummary;
+import tech.alexberbo.berboapp.model.CursorPage;
 import tech.alexberbo.berboapp.model.Invoice;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface InvoiceService {
     Invoice createInvoice(Invoice invoice);
     Page<Invoice> getInvoices(int page, int size);
+    CursorPage<InvoiceSummary> getInvoices(String after, int size);
     void addInvoiceToCustomer(Long customerId, Long serviceId, Invoice invoice);
     Invoice getInvoice(Long id);
     List<Invoice> getAll();
-
+    void streamInvoices(Consumer<Invoice> consumer);
 }
@@ -1,14 +1,18 @@
 package tech.alexberbo.berboapp.service;
 
 import org.springframework.data.domain.Page;
+import tech.alexberbo.berboapp.dto.ServiceSummary;
+import tech.alexberbo.berboapp.model.CursorPage;
 import tech.alexberbo.berboapp.model.ServiceCustomer;
 
 import java.util.List;
 
 public interface ServiceCustomerService {
-    List<ServiceCustomer> getServices();
+    List<ServiceSummary> getServices();
 
-    Page<ServiceCustomer> services(int page, int size);
+    Page<ServiceSummary> services(int page, int size);
+
+    CursorPage<ServiceSummary> services(String after, int size);
 
     ServiceCustomer createService(ServiceCustomer serviceCustomer);
 
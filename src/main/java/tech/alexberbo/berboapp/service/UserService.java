@@ -21,6 +21,7 @@ public interface UserService {
     UserDTO verifyAccount(String key);
     UserDTO updateUser(UpdateForm user);
     UserDTO getUserById(Long userId);
+    boolean isUserActive(Long userId);
     void updatePassword(Long userId, String currentPassword, String newPassword, String confirmPassword);
     void updateRole(Long userId, String roleName);
     void updateSettings(Long userId, Boolean enabled, Boolean notLocked);
@@ -11,6 +11,7 @@ import tech.alexberbo.berboapp.dto.UserDTO;
 import tech.alexberbo.berboapp.enumerator.EventType;
 import tech.alexberbo.berboapp.event.NewUserEvent;
 import tech.alexberbo.berboapp.exception.ApiException;
+import tech.alexberbo.berboapp.exception.PasswordHashingBusyException;
 import tech.alexberbo.berboapp.model.UserPrincipal;
 import tech.alexberbo.berboapp.service.AuthService;
 import tech.alexberbo.berboapp.service.UserService;
@@ -36,6 +37,8 @@ public class AuthServiceImpl implements AuthService {
             Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, password));
             loginAttemptSuccessEvent(getAuthenticatedUser(authentication), LOGIN_ATTEMPT_SUCCESS);
             return getAuthenticatedUser(authentication);
+        } catch (PasswordHashingBusyException e) {
+            throw e;
         } catch (Exception e) {
             loginAttemptEvent(email, LOGIN_ATTEMPT_FAILURE);
             handleExceptions(response, e);
@@ -3,20 +3,29 @@ package tech.alexberbo.berboapp.service.impl;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import tech.alexberbo.berboapp.dto.CustomerSummary;
 import tech.alexberbo.berboapp.model.Customer;
+import tech.alexberbo.berboapp.model.CursorPage;
 import tech.alexberbo.berboapp.model.Stats;
 import tech.alexberbo.berboapp.repository.CustomerRepository;
-import tech.alexberbo.berboapp.rowmapper.StatsRowMapper;
+import tech.alexberbo.berboapp.repository.StatsRepository;
+import tech.alexberbo.berboapp.rowmapper.CustomerRowMapper;
 import tech.alexberbo.berboapp.service.CustomerService;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.springframework.data.domain.PageRequest.of;
-import static tech.alexberbo.berboapp.constant.query.StatsQuery.STATS_QUERY;
+import static org.springframework.data.domain.PageRequest.ofSize;
+import static tech.alexberbo.berboapp.model.CursorPage.decode;
+import static tech.alexberbo.berboapp.constant.query.ReportQuery.SELECT_CUSTOMERS_REPORT_QUERY;
 
 @Service
 @Transactional
@@ -24,33 +33,69 @@ import static tech.alexberbo.berboapp.constant.query.StatsQuery.STATS_QUERY;
 @Slf4j
 public class CustomerServiceImpl implements CustomerService {
     private final CustomerRepository customerRepository;
+    private static final int MIN_SEARCH_TERM_LENGTH = 2;
+    private final StatsRepository statsRepository;
     private final NamedParameterJdbcTemplate jdbc;
+    @Value("${report.page-size:1000}")
+    private int reportPageSize;
 
     @Override
     public Customer createCustomer(Customer customer) {
         customer.setCreatedAt(new Date());
-        return customerRepository.save(customer);
+        Customer createdCustomer = customerRepository.save(customer);
+        statsRepository.addCustomer();
+        return createdCustomer;
     }
 
     @Override
     public Customer updateCustomer(Customer customer) { return customerRepository.save(customer); }
 
     @Override
-    public Customer getCustomer(Long id) { return customerRepository.findById(id).get(); }
+    public Customer getCustomer(Long id) { return customerRepository.findWithInvoicesById(id).get(); }
 
     @Override
-    public Page<Customer> getCustomers(int page, int size) { return customerRepository.findAll(of(page, size)); }
+    public Page<CustomerSummary> getCustomers(int page, int size) { return customerRepository.findAllBy(of(page, size)); }
 
+    /**
+     * Keyset page, newest customers first, no OFFSET and no COUNT(*) so every page costs the same as the first one.
+     */
     @Override
-    public Page<Customer> searchCustomers(String name, int page, int size) {
-        return customerRepository.findByNameContaining(name, of(page, size));
+    public CursorPage<CustomerSummary> getCustomers(String after, int size) {
+        return CursorPage.of(customerRepository.findByIdLessThanOrderByIdDesc(decode(after), ofSize(size)), CustomerSummary::getId);
     }
 
+    /**
+     * Ranked FULLTEXT (ngram) search over the name, email and phone, the best matches come first and there is no total count.
+     * A term shorter than the ngram token size can't be matched by the index, so it is a prefix search on the indexed name.
+     */
     @Override
-    public Iterable<Customer> getCustomers() { return customerRepository.findAll(); }
+    public Slice<CustomerSummary> searchCustomers(String name, int page, int size) {
+        String term = name.trim();
+        if (term.isEmpty()) return customerRepository.findAllByOrderByIdDesc(of(page, size));
+        if (term.length() < MIN_SEARCH_TERM_LENGTH) return customerRepository.findByNameStartingWithOrderByName(term, of(page, size));
+        return customerRepository.searchByTerm(term, of(page, size));
+    }
+
+    @Override
+    public List<CustomerSummary> getCustomers() { return customerRepository.findAllBy(); }
+
+    /**
+     * Reads the customers page by page (keyset on the id, report.page-size rows per page) and hands them one by one to the consumer,
+     * so the report never needs all the customers or their invoices in memory.
+     */
+    @Override
+    public void streamCustomers(Consumer<Customer> consumer) {
+        long lastId = 0;
+        List<Customer> customers;
+        do {
+            customers = jdbc.query(SELECT_CUSTOMERS_REPORT_QUERY, Map.of("lastId", lastId, "size", reportPageSize), new CustomerRowMapper());
+            customers.forEach(consumer);
+            if (!customers.isEmpty()) lastId = customers.get(customers.size() - 1).getId();
+        } while (customers.size() == reportPageSize);
+    }
 
     @Override
     public Stats getStats() {
-        return jdbc.queryForObject(STATS_QUERY, Map.of(), new StatsRowMapper());
+        return statsRepository.getStats();
     }
 }
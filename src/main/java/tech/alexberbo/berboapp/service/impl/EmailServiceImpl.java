@@ -1,99 +1,50 @@
 package tech.alexberbo.berboapp.service.impl;
 
-import jakarta.mail.internet.MimeMessage;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import tech.alexberbo.berboapp.enumerator.VerificationType;
 import tech.alexberbo.berboapp.exception.ApiException;
 import tech.alexberbo.berboapp.model.Message;
+import tech.alexberbo.berboapp.repository.EmailOutboxRepository;
 import tech.alexberbo.berboapp.service.EmailService;
 
-import java.util.Date;
-import java.util.concurrent.CancellationException;
-
 import static tech.alexberbo.berboapp.constant.email.EmailConstants.*;
 
 /**
-    This is the pattern of sending emails, one is for confirming the email before login, and the other is for the MFA verification code.
-    Using the JavaMailSender we set the settings and properties of each email before we send it and use it in other implementations of the app.
+    This is the pattern of the emails, one is for confirming the email before login, and the other is for the MFA verification code.
+    The emails are not sent here, they are added to the email outbox in the transaction of the caller and the EmailOutboxDispatcher
+    sends them in the background, so a request never waits for the SMTP server.
  */
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 @Slf4j
 public class EmailServiceImpl implements EmailService {
-    private JavaMailSender mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
+
     @Override
-    @Async
     public void sendConfirmationEmail(String firstName, String email, String token) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, UTF_8);
-            helper.setSubject(SUBJECT_WELCOME);
-            helper.setTo(email);
-            helper.setText("Hello " +
-                    firstName +
-                    ". Please confirm your email by clicking on this link: " +
-                    "http://localhost:8080/reddit/confirm/" + token);
-            helper.setSentDate(new Date());
-            mailSender.send(message);
-        } catch (Exception e) {
-            log.info("Error: " + e.getMessage());
-            throw new CancellationException("Error, can't send Email to: " + email);
-        }
+        emailOutboxRepository.add(email, SUBJECT_WELCOME, "Hello " +
+                firstName +
+                ". Please confirm your email by clicking on this link: " +
+                "http://localhost:8080/reddit/confirm/" + token);
     }
 
     @Override
     public void sendTwoFactorCode(String firstName, String email, String code) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, UTF_8);
-            helper.setSubject(SUBJECT_TWO_FACTOR);
-            helper.setTo(email);
-            helper.setText("Hello " +
-                    firstName +
-                    ". Your Two factor authentication code: " + code);
-            helper.setSentDate(new Date());
-            mailSender.send(message);
-        } catch (Exception e) {
-            log.info("Error: " + e.getMessage());
-            throw new CancellationException("Error, can't send Email to: " + email);
-        }
+        emailOutboxRepository.add(email, SUBJECT_TWO_FACTOR, "Hello " +
+                firstName +
+                ". Your Two factor authentication code: " + code);
     }
 
     @Override
     public void sendPasswordResetEmail(String firstName, String email, String verificationUrl) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, UTF_8);
-            helper.setSubject(SUBJECT_PASSWORD_RESET);
-            helper.setTo(email);
-            helper.setText("Hello " + firstName + " your verification url for password recovery is: " + verificationUrl);
-            helper.setSentDate(new Date());
-            mailSender.send(message);
-        } catch (Exception e) {
-            log.info("Error: " + e.getMessage());
-            throw new CancellationException("Error, can't send Email to: " + email);
-        }
+        emailOutboxRepository.add(email, SUBJECT_PASSWORD_RESET, "Hello " + firstName + " your verification url for password recovery is: " + verificationUrl);
     }
 
     @Override
     public void sendVerifyEmail(String email, String firstName, String verificationUrl, VerificationType verificationType) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, UTF_8);
-            helper.setSubject(SUBJECT_ACCOUNT_VERIFICATION);
-            helper.setTo(email);
-            helper.setText(sendEmail(firstName, verificationUrl, verificationType));
-            helper.setSentDate(new Date());
-            mailSender.send(message);
-        } catch (Exception e) {
-            log.info("Error: " + e.getMessage());
-            throw new CancellationException("Error, can't send Email to: " + email);
-        }
+        emailOutboxRepository.add(email, SUBJECT_ACCOUNT_VERIFICATION, sendEmail(firstName, verificationUrl, verificationType));
     }
 
     private String sendEmail(String firstName, String verificationUrl, VerificationType verificationType) {
@@ -106,17 +57,6 @@ public class EmailServiceImpl implements EmailService {
 
     @Override
     public void sendReport(Message message, String email) {
-        try {
-            MimeMessage msg = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(msg, UTF_8);
-            helper.setSubject(SUBJECT_REPORT);
-            helper.setTo(ADMIN);
-            helper.setText("Report came in from user: " + email + "\n\n" + message.getContent());
-            helper.setSentDate(new Date());
-            mailSender.send(msg);
-        } catch (Exception e) {
-            log.info("Error: " + e.getMessage());
-            throw new CancellationException("Error, can't send Email to: " + ADMIN);
-        }
+        emailOutboxRepository.add(ADMIN, SUBJECT_REPORT, "Report came in from user: " + email + "\n\n" + message.getContent());
     }
 }
@@ -3,22 +3,33 @@ package tech.alexberbo.berboapp.service.impl;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import tech.alexberbo.berboapp.dto.InvoiceSummary;
 import tech.alexberbo.berboapp.mapper.InvoiceMapper;
+import tech.alexberbo.berboapp.model.CursorPage;
 import tech.alexberbo.berboapp.model.Customer;
 import tech.alexberbo.berboapp.model.Invoice;
 import tech.alexberbo.berboapp.model.ServiceCustomer;
 import tech.alexberbo.berboapp.repository.CustomerRepository;
 import tech.alexberbo.berboapp.repository.InvoiceRepository;
 import tech.alexberbo.berboapp.repository.ServiceCustomerRepository;
+import tech.alexberbo.berboapp.repository.StatsRepository;
+import tech.alexberbo.berboapp.rowmapper.InvoiceRowMapper;
 import tech.alexberbo.berboapp.service.InvoiceService;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
 import static org.springframework.data.domain.PageRequest.of;
+import static org.springframework.data.domain.PageRequest.ofSize;
+import static tech.alexberbo.berboapp.model.CursorPage.decode;
+import static tech.alexberbo.berboapp.constant.query.ReportQuery.SELECT_INVOICES_REPORT_QUERY;
 
 @Service
 @Transactional
@@ -28,12 +39,18 @@ public class InvoiceServiceImpl implements InvoiceService {
     private final InvoiceRepository invoiceRepository;
     private final CustomerRepository customerRepository;
     private final ServiceCustomerRepository serviceCustomerRepository;
+    private final StatsRepository statsRepository;
+    private final NamedParameterJdbcTemplate jdbc;
+    @Value("${report.page-size:1000}")
+    private int reportPageSize;
 
     @Override
     public Invoice createInvoice(Invoice invoice) {
         invoice.setInvoiceNumber(randomAlphanumeric(10).toUpperCase());
         invoice.setCreatedAt(new Date());
-        return invoiceRepository.save(invoice);
+        Invoice createdInvoice = invoiceRepository.save(invoice);
+        statsRepository.addInvoice(createdInvoice.getTotal());
+        return createdInvoice;
     }
 
     @Override
@@ -41,6 +58,14 @@ public class InvoiceServiceImpl implements InvoiceService {
         return invoiceRepository.findAll(of(page, size));
     }
 
+    /**
+     * Keyset page of the invoices, newest first, the deep pages are as cheap as the first one.
+     */
+    @Override
+    public CursorPage<InvoiceSummary> getInvoices(String after, int size) {
+        return CursorPage.of(invoiceRepository.findByIdLessThanOrderByIdDesc(decode(after), ofSize(size)), InvoiceSummary::getId);
+    }
+
     @Override
     public void addInvoiceToCustomer(Long customerId, Long serviceId, Invoice invoice) {
         invoice.setInvoiceNumber(randomAlphanumeric(10).toUpperCase());
@@ -51,6 +76,7 @@ public class InvoiceServiceImpl implements InvoiceService {
         invoice.setServiceName(serviceCustomer.getName());
         invoice.setCustomer(customer);
         invoiceRepository.save(invoice);
+        statsRepository.addInvoice(invoice.getTotal());
     }
 
     @Override
@@ -62,4 +88,18 @@ public class InvoiceServiceImpl implements InvoiceService {
     public List<Invoice> getAll() {
         return invoiceRepository.findAll();
     }
+
+    /**
+     * Same as the customers, keyset pages of invoices joined with their service and customer, one query per page.
+     */
+    @Override
+    public void streamInvoices(Consumer<Invoice> consumer) {
+        long lastId = 0;
+        List<Invoice> invoices;
+        do {
+            invoices = jdbc.query(SELECT_INVOICES_REPORT_QUERY, Map.of("lastId", lastId, "size", reportPageSize), new InvoiceRowMapper());
+            invoices.forEach(consumer);
+            if (!invoices.isEmpty()) lastId = invoices.get(invoices.size() - 1).getId();
+        } while (invoices.size() == reportPageSize);
+    }
 }
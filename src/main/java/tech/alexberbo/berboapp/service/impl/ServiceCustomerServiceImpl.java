@@ -4,6 +4,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
+import tech.alexberbo.berboapp.dto.ServiceSummary;
+import tech.alexberbo.berboapp.model.CursorPage;
 import tech.alexberbo.berboapp.model.ServiceCustomer;
 import tech.alexberbo.berboapp.repository.ServiceCustomerRepository;
 import tech.alexberbo.berboapp.service.ServiceCustomerService;
@@ -12,6 +14,8 @@ import java.util.List;
 
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
 import static org.springframework.data.domain.PageRequest.of;
+import static org.springframework.data.domain.PageRequest.ofSize;
+import static tech.alexberbo.berboapp.model.CursorPage.decode;
 
 @Service
 @RequiredArgsConstructor
@@ -20,13 +24,18 @@ public class ServiceCustomerServiceImpl implements ServiceCustomerService {
     private final ServiceCustomerRepository serviceCustomerRepository;
 
     @Override
-    public List<ServiceCustomer> getServices() {
-        return serviceCustomerRepository.findAll();
+    public List<ServiceSummary> getServices() {
+        return serviceCustomerRepository.findAllBy();
     }
 
     @Override
-    public Page<ServiceCustomer> services(int page, int size) {
-        return serviceCustomerRepository.findAll(of(page, size));
+    public Page<ServiceSummary> services(int page, int size) {
+        return serviceCustomerRepository.findAllBy(of(page, size));
+    }
+
+    @Override
+    public CursorPage<ServiceSummary> services(String after, int size) {
+        return CursorPage.of(serviceCustomerRepository.findByIdLessThanOrderByIdDesc(decode(after), ofSize(size)), ServiceSummary::getId);
     }
 
     @Override
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import tech.alexberbo.berboapp.cache.UserCache;
 import tech.alexberbo.berboapp.dto.UserDTO;
 import tech.alexberbo.berboapp.exception.CodeExpiredException;
 import tech.alexberbo.berboapp.exception.EmailDoesNotExistException;
@@ -20,20 +21,25 @@ import static tech.alexberbo.berboapp.dtomapper.UserDTOMapper.fromUser;
 
 /**
     This is implementing the UserService which is just calling the UserRepository implementation where all the logic is actually done.
+    Users that are read by id or email are kept in the UserCache, so every method that changes the user invalidates it.
  */
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository<User> userRepository;
     private final RoleRepository<Role> roleRepository;
+    private final UserCache userCache;
 
     @Override
     public UserDTO register(User user) throws EmailExistsException {
-        return mapToUserDTO(userRepository.register(user));
+        UserDTO userDTO = mapToUserDTO(userRepository.register(user));
+        // registering again replaces the password and the names of an unverified user
+        userCache.invalidate(userDTO.getId());
+        return userDTO;
     }
     @Override
     public UserDTO getUserByEmail(String email) {
-        return mapToUserDTO(userRepository.getUserByEmail(email));
+        return userCache.getByEmail(email, key -> userRepository.getUserWithRoleByEmail(key).getUser());
     }
 
     @Override
@@ -64,6 +70,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public void updatePassword(Long id, String currentPassword, String newPassword, String confirmPassword) {
         userRepository.updatePassword(id, currentPassword, newPassword, confirmPassword);
+        userCache.invalidate(id);
     }
 
     @Override
@@ -74,16 +81,20 @@ public class UserServiceImpl implements UserService {
     @Override
     public void updateSettings(Long userId, Boolean enabled, Boolean notLocked) {
         userRepository.updateSettings(userId, enabled, notLocked);
+        userCache.invalidate(userId);
     }
 
     @Override
     public UserDTO updateMfa(String email) {
-        return mapToUserDTO(userRepository.updateMfa(email));
+        User user = userRepository.updateMfa(email);
+        userCache.invalidate(user.getId());
+        return mapToUserDTO(user);
     }
 
     @Override
     public void updateImage(UserDTO user, MultipartFile image) {
         userRepository.updateImage(user, image);
+        userCache.invalidate(user.getId());
     }
 
     @Override
@@ -93,17 +104,26 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserDTO verifyAccount(String key) {
-        return mapToUserDTO(userRepository.verifyAccount(key));
+        User user = userRepository.verifyAccount(key);
+        userCache.invalidate(user.getId());
+        return mapToUserDTO(user);
     }
 
     @Override
     public UserDTO updateUser(UpdateForm user) {
-        return mapToUserDTO(userRepository.updateUserData(user));
+        User updatedUser = userRepository.updateUserData(user);
+        userCache.invalidate(user.getId());
+        return mapToUserDTO(updatedUser);
     }
 
     @Override
     public UserDTO getUserById(Long userId) {
-        return mapToUserDTO(userRepository.getUser(userId));
+        return userCache.getById(userId, id -> userRepository.getUserWithRole(id).getUser());
+    }
+
+    @Override
+    public boolean isUserActive(Long userId) {
+        return userRepository.isUserActive(userId);
     }
 
     private UserDTO mapToUserDTO(User user) {
@@ -0,0 +1,41 @@
+package tech.alexberbo.berboapp.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import nl.basjes.parse.useragent.UserAgent;
+import nl.basjes.parse.useragent.UserAgentAnalyzer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import static nl.basjes.parse.useragent.UserAgent.*;
+import static tech.alexberbo.berboapp.util.RequestUtils.USER_AGENT_HEADER;
+
+/**
+ * One shared User-Agent analyzer for the whole app, building an analyzer loads thousands of matchers,
+ * so it is built only once and not for every user event.
+ * Only the fields that we show to the user are calculated (OS, browser and device name),
+ * and the results are kept in the analyzer's LRU cache keyed by the raw User-Agent header.
+ * With eager init the matchers are loaded when the app starts instead of on the first login.
+ */
+@Component
+public class DeviceAnalyzer {
+    private final UserAgentAnalyzer analyzer;
+
+    public DeviceAnalyzer(@Value("${user-agent.cache-size:10000}") int cacheSize,
+                          @Value("${user-agent.eager-init:true}") boolean eagerInit) {
+        UserAgentAnalyzer.UserAgentAnalyzerBuilder builder = UserAgentAnalyzer.newBuilder()
+                .hideMatcherLoadStats()
+                .dropTests()
+                .withCache(cacheSize)
+                .withFields(OPERATING_SYSTEM_NAME, AGENT_NAME, DEVICE_NAME);
+        this.analyzer = eagerInit ? builder.immediateInitialization().build() : builder.delayInitialization().build();
+    }
+
+    public String getDevice(HttpServletRequest request) {
+        return getDevice(request.getHeader(USER_AGENT_HEADER));
+    }
+
+    public String getDevice(String userAgentHeader) {
+        UserAgent agent = analyzer.parse(userAgentHeader);
+        return agent.getValue(OPERATING_SYSTEM_NAME) + " - " + agent.getValue(AGENT_NAME) + " - " + agent.getValue(DEVICE_NAME);
+    }
+}
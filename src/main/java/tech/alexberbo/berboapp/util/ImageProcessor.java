@@ -0,0 +1,172 @@
+package tech.alexberbo.berboapp.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tech.alexberbo.berboapp.exception.ApiException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Turns an uploaded profile image into square png thumbnails (image.thumbnail-sizes) that are stored by content:
+ * the file name is the SHA-256 of the upload and the size, <hash>-<size>.png. The same upload is only processed once,
+ * when its thumbnails already exist nothing is decoded, and a file name always has the same bytes, so it can be cached forever.
+ * The upload is decoded once, images bigger than image.max-pixels are refused before decoding, and the thumbnails
+ * are scaled and encoded on a bounded pool (image.processing-threads, 0 means the core count).
+ * The decoder skips pixels (source subsampling) so the decoded image is at most about twice the biggest thumbnail,
+ * a 6000x6000 upload is decoded as 1000x1000 (4 MB) instead of 144 MB, whatever the number of uploads at the same time.
+ * Metrics: image.thumbnails (processing time of an upload) and the executor metrics of the "image-processing" pool.
+ */
+@Component
+@Slf4j
+public class ImageProcessor {
+    public static final Pattern THUMBNAIL_NAME = Pattern.compile("[0-9a-f]{64}-\\d{1,4}\\.png");
+    private final ImageStorage imageStorage;
+    private final List<Integer> sizes;
+    private final int urlSize;
+    private final int decodeSize;
+    private final long maxPixels;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+    private final Timer timer;
+
+    public ImageProcessor(ImageStorage imageStorage, MeterRegistry registry,
+                          @Value("${image.thumbnail-sizes:40,128,512}") List<Integer> sizes,
+                          @Value("${image.url-size:128}") int urlSize,
+                          @Value("${image.max-pixels:25000000}") long maxPixels,
+                          @Value("${image.processing-threads:0}") int threads,
+                          @Value("${image.processing-queue-capacity:100}") int queueCapacity) {
+        if (!sizes.contains(urlSize)) throw new IllegalStateException("image.url-size " + urlSize + " is not one of the image.thumbnail-sizes " + sizes);
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        this.imageStorage = imageStorage;
+        this.sizes = List.copyOf(sizes);
+        this.urlSize = urlSize;
+        this.decodeSize = 2 * Collections.max(sizes);
+        this.maxPixels = maxPixels;
+        this.pool = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "image-processing-" + count.incrementAndGet()), new ThreadPoolExecutor.CallerRunsPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+        this.executor = ExecutorServiceMetrics.monitor(registry, pool, "image-processing");
+        this.timer = Timer.builder("image.thumbnails").description("Decoding, scaling and storing the thumbnails of an upload").register(registry);
+    }
+
+    /**
+     * Stores the thumbnails of the upload and returns the file name of the image.url-size thumbnail.
+     */
+    public String process(byte[] upload) {
+        String hash = hash(upload);
+        if (sizes.stream().allMatch(size -> imageStorage.exists(fileName(hash, size)))) {
+            log.info("Thumbnails of {} already exist", hash);
+            return fileName(hash, urlSize);
+        }
+        return timer.record(() -> {
+            BufferedImage image = decode(upload);
+            List<Future<?>> thumbnails = new ArrayList<>();
+            for (int size : sizes) {
+                thumbnails.add(executor.submit(() -> {
+                    imageStorage.save(fileName(hash, size), new ByteArrayInputStream(encode(scale(image, size))));
+                    return null;
+                }));
+            }
+            for (Future<?> thumbnail : thumbnails) {
+                try {
+                    thumbnail.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ApiException("Request interrupted, please try again!");
+                } catch (ExecutionException e) {
+                    log.error(e.getCause().getMessage());
+                    throw new ApiException("Could not process the image!");
+                }
+            }
+            return fileName(hash, urlSize);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private BufferedImage decode(byte[] upload) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(upload))) {
+            Iterator<ImageReader> readers = in == null ? Collections.emptyIterator() : ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) throw new ApiException("Unsupported image format!");
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) throw new ApiException("Image is too big!");
+                int subsampling = Math.max(1, Math.min(width, height) / decodeSize);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            log.error(e.getMessage());
+            throw new ApiException("Could not read the image!");
+        }
+    }
+
+    /**
+     * Crops the middle square and scales it down in steps of at most a half, which keeps the quality of bilinear scaling.
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        BufferedImage current = image.getSubimage((image.getWidth() - side) / 2, (image.getHeight() - side) / 2, side, side);
+        int currentSize = side;
+        do {
+            currentSize = Math.max(size, currentSize / 2);
+            if (side <= size) currentSize = size;
+            BufferedImage next = new BufferedImage(currentSize, currentSize, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, currentSize, currentSize, null);
+            graphics.dispose();
+            current = next;
+        } while (currentSize > size);
+        return current;
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static String fileName(String hash, int size) {
+        return hash + "-" + size + ".png";
+    }
+
+    private static String hash(byte[] upload) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(upload));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package tech.alexberbo.berboapp.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import tech.alexberbo.berboapp.exception.ApiException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * The profile images on disk (image.directory). The images are written to a temp file and moved in place,
+ * so a request never reads half of an image that is being replaced.
+ * Only plain png file names are accepted and the resolved path has to stay in the directory, so a name can't point anywhere else.
+ * The ETag of an image is the SHA-256 of its bytes, it is computed once per version of the file (size and modified time)
+ * and kept in a bounded cache.
+ */
+@Component
+@Slf4j
+public class ImageStorage {
+    private static final Pattern FILE_NAME = Pattern.compile("[A-Za-z0-9._@+-]{1,200}\\.png");
+    private final Path directory;
+    private final Cache<Path, Version> versions;
+
+    public ImageStorage(@Value("${image.directory:${user.home}/berbogram/images}") String directory,
+                        @Value("${image.etag-cache-size:10000}") long etagCacheSize) {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.versions = Caffeine.newBuilder().maximumSize(etagCacheSize).build();
+    }
+
+    public void save(String fileName, InputStream image) {
+        Path path = resolve(fileName).orElseThrow(() -> new ApiException("Invalid image name!"));
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "upload-", ".tmp");
+            try {
+                Files.copy(image, temp, REPLACE_EXISTING);
+                Files.move(temp, path, REPLACE_EXISTING, ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            versions.invalidate(path);
+        } catch (IOException e) {
+            log.error(e.getMessage());
+            throw new ApiException("Could not save the image!");
+        }
+        log.info("File saved in {}", path);
+    }
+
+    public boolean exists(String fileName) {
+        return resolve(fileName).map(Files::isRegularFile).orElse(false);
+    }
+
+    /**
+     * The image with its ETag and modified time, empty when the name is not valid or the file doesn't exist.
+     */
+    public Optional<StoredImage> getImage(String fileName) {
+        return resolve(fileName).flatMap(path -> {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) return Optional.empty();
+                long modified = attributes.lastModifiedTime().toMillis();
+                Version version = versions.getIfPresent(path);
+                if (version == null || version.size() != attributes.size() || version.modified() != modified) {
+                    version = new Version(attributes.size(), modified, hash(path));
+                    versions.put(path, version);
+                }
+                return Optional.of(new StoredImage(new FileSystemResource(path), version.etag(), modified));
+            } catch (NoSuchFileException e) {
+                return Optional.empty();
+            } catch (IOException e) {
+                log.error(e.getMessage());
+                throw new ApiException("Could not read the image!");
+            }
+        });
+    }
+
+    private Optional<Path> resolve(String fileName) {
+        if (fileName == null || !FILE_NAME.matcher(fileName).matches()) return Optional.empty();
+        Path path = directory.resolve(fileName).normalize();
+        return path.getParent().equals(directory) ? Optional.of(path) : Optional.empty();
+    }
+
+    private String hash(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    public record StoredImage(Resource resource, String etag, long lastModified) {
+    }
+
+    private record Version(long size, long modified, String etag) {
+    }
+}
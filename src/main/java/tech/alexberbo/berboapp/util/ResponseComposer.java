@@ -0,0 +1,104 @@
+package tech.alexberbo.berboapp.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Component;
+import tech.alexberbo.berboapp.exception.ApiException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent reads of one response (user, page, stats...) at the same time, so the endpoint takes as long as the slowest read
+ * and not as long as all of them together.
+ * The calls run on a bounded pool (composer.threads, composer.queue-capacity), when the pool is full the call runs in the request thread.
+ * The security context of the request is copied to the pool threads. Every call runs in its own transaction (the one of the service method),
+ * and nothing is lazy loaded later, so the calls must return DTOs, projections or fully loaded data, and must not use request scoped beans.
+ * A call that doesn't finish in time (composer.timeout or the timeout given with the call) fails the response with an ApiException.
+ * The calls are FutureTasks, so when the response fails the calls still running are interrupted (a JDBC call gives up at the next
+ * blocking point of the driver) and the ones still in the queue never start.
+ * Java 17 has no virtual threads, so the pool uses platform threads.
+ */
+@Component
+@Slf4j
+public class ResponseComposer {
+    private final ThreadPoolExecutor pool;
+    private final Executor executor;
+    private final Duration timeout;
+
+    public ResponseComposer(@Value("${composer.threads:16}") int threads,
+                            @Value("${composer.queue-capacity:100}") int queueCapacity,
+                            @Value("${composer.timeout:5000}") long timeout,
+                            MeterRegistry registry) {
+        AtomicInteger count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "composer-" + count.incrementAndGet()), new ThreadPoolExecutor.CallerRunsPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+        this.executor = new DelegatingSecurityContextExecutor(ExecutorServiceMetrics.monitor(registry, pool, "composer"));
+        this.timeout = Duration.ofMillis(timeout);
+    }
+
+    public Composition compose() {
+        return new Composition();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * The calls start as soon as they are added, join waits for all of them and returns the data map in the order the calls were added.
+     */
+    public class Composition {
+        private final Map<String, FutureTask<?>> calls = new LinkedHashMap<>();
+        private final Map<String, Long> deadlines = new LinkedHashMap<>();
+
+        public Composition with(String key, Supplier<?> call) {
+            return with(key, call, timeout);
+        }
+
+        public Composition with(String key, Supplier<?> call, Duration callTimeout) {
+            deadlines.put(key, System.nanoTime() + callTimeout.toNanos());
+            FutureTask<?> task = new FutureTask<>(call::get);
+            calls.put(key, task);
+            executor.execute(task);
+            return this;
+        }
+
+        public Map<String, Object> join() {
+            Map<String, Object> data = new LinkedHashMap<>();
+            try {
+                for (Map.Entry<String, FutureTask<?>> call : calls.entrySet()) {
+                    data.put(call.getKey(), get(call.getKey(), call.getValue()));
+                }
+                return data;
+            } finally {
+                calls.values().forEach(future -> future.cancel(true));
+            }
+        }
+
+        private Object get(String key, Future<?> future) {
+            try {
+                return future.get(deadlines.get(key) - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.error("{} was not retrieved in time", key);
+                throw new ApiException("Request timed out, please try again!");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiException("Request interrupted, please try again!");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException exception) throw exception;
+                throw new ApiException(e.getCause().getMessage());
+            }
+        }
+    }
+}
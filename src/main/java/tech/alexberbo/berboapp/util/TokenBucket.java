@@ -0,0 +1,40 @@
+package tech.alexberbo.berboapp.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token bucket without locks, the tokens and the time of the last refill are swapped together with compareAndSet.
+ * The bucket starts full, every call takes one token, and the tokens come back at a fixed rate up to the capacity.
+ * Both have to be positive, an empty bucket would refuse everything and one without refill would wait forever.
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private final AtomicReference<State> state;
+
+    public TokenBucket(int capacity, double refillPerMinute) {
+        if (capacity <= 0 || !(refillPerMinute > 0)) {
+            throw new IllegalArgumentException("Token bucket needs a positive capacity and refill, got " + capacity + " and " + refillPerMinute);
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.state = new AtomicReference<>(new State(capacity, System.nanoTime()));
+    }
+
+    /**
+     * Takes a token, returns 0 when it was taken or the nanoseconds until the next token when the bucket is empty.
+     */
+    public long tryConsume() {
+        while (true) {
+            State current = state.get();
+            long now = Math.max(System.nanoTime(), current.time());
+            double tokens = Math.min(capacity, current.tokens() + (now - current.time()) * tokensPerNano);
+            if (tokens < 1) return (long) Math.ceil((1 - tokens) / tokensPerNano);
+            if (state.compareAndSet(current, new State(tokens - 1, now))) return 0;
+        }
+    }
+
+    private record State(double tokens, long time) {
+    }
+}
@@ -0,0 +1,86 @@
+package tech.alexberbo.berboapp.verification;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+
+/**
+ * Codes in a local cache keyed by the user id, for a single node. Every code expires after its own ttl,
+ * Caffeine keeps the variable expirations in its timer wheel and the system scheduler removes them when they are due.
+ * verify is one atomic compute on the user key: the code is removed when it is valid or out of attempts,
+ * otherwise the attempt is counted and the code keeps its expiration.
+ * An expired code is already gone from the cache, so it is reported as INVALID and not as EXPIRED.
+ */
+@Component
+@ConditionalOnProperty(name = "verification-code.store", havingValue = "memory")
+public class InMemoryVerificationCodeStore implements VerificationCodeStore {
+    private final Cache<Long, Code> codes;
+    private final Duration ttl;
+    private final int maxAttempts;
+
+    public InMemoryVerificationCodeStore(@Value("${verification-code.maximum-size:100000}") long maximumSize,
+                                         @Value("${verification-code.ttl:86400000}") long ttl,
+                                         @Value("${verification-code.max-attempts:5}") int maxAttempts) {
+        this.codes = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new CodeExpiry())
+                .scheduler(Scheduler.systemScheduler())
+                .build();
+        this.ttl = Duration.ofMillis(ttl);
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public void save(Long userId, String code) {
+        codes.put(userId, new Code(VerificationCodeStore.hash(userId, code).getBytes(StandardCharsets.UTF_8), ttl.toNanos(), 0));
+    }
+
+    @Override
+    public VerificationResult verify(Long userId, String code) {
+        byte[] hash = VerificationCodeStore.hash(userId, code).getBytes(StandardCharsets.UTF_8);
+        VerificationResult[] result = {VerificationResult.INVALID};
+        codes.asMap().computeIfPresent(userId, (id, current) -> {
+            if (MessageDigest.isEqual(current.hash(), hash)) {
+                result[0] = VerificationResult.VALID;
+                return null;
+            }
+            if (current.attempts() + 1 >= maxAttempts) {
+                result[0] = VerificationResult.TOO_MANY_ATTEMPTS;
+                return null;
+            }
+            return new Code(current.hash(), current.ttl(), current.attempts() + 1);
+        });
+        return result[0];
+    }
+
+    private record Code(byte[] hash, long ttl, int attempts) {
+    }
+
+    /**
+     * A new code expires after its ttl, counting an attempt doesn't change the expiration.
+     */
+    private static class CodeExpiry implements Expiry<Long, Code> {
+        @Override
+        public long expireAfterCreate(Long userId, Code code, long currentTime) {
+            return code.ttl();
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, Code code, long currentTime, long currentDuration) {
+            return code.attempts() == 0 ? code.ttl() : currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, Code code, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package tech.alexberbo.berboapp.verification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static tech.alexberbo.berboapp.constant.query.VerificationCodeQuery.*;
+
+/**
+ * Codes in the TwoFactorVerifications table, looked up by the unique user_id.
+ * Saving is one upsert, a valid code is checked and removed with one DELETE, only a wrong code needs the extra queries
+ * that tell an expired code from a wrong one and count the attempt.
+ */
+@Component
+@ConditionalOnProperty(name = "verification-code.store", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcVerificationCodeStore implements VerificationCodeStore {
+    private final NamedParameterJdbcTemplate jdbc;
+    private final Duration ttl;
+    private final int maxAttempts;
+
+    public JdbcVerificationCodeStore(NamedParameterJdbcTemplate jdbc,
+                                     @Value("${verification-code.ttl:86400000}") long ttl,
+                                     @Value("${verification-code.max-attempts:5}") int maxAttempts) {
+        this.jdbc = jdbc;
+        this.ttl = Duration.ofMillis(ttl);
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public void save(Long userId, String code) {
+        jdbc.update(UPSERT_VERIFICATION_CODE_QUERY, Map.of("userId", userId, "code", VerificationCodeStore.hash(userId, code), "ttl", ttl.toSeconds()));
+    }
+
+    @Override
+    @Transactional
+    public VerificationResult verify(Long userId, String code) {
+        if (jdbc.update(DELETE_VALID_VERIFICATION_CODE_QUERY, Map.of("userId", userId, "code", VerificationCodeStore.hash(userId, code))) == 1) {
+            return VerificationResult.VALID;
+        }
+        List<Map<String, Object>> rows = jdbc.queryForList(SELECT_VERIFICATION_CODE_FOR_UPDATE_QUERY, Map.of("userId", userId));
+        if (rows.isEmpty()) return VerificationResult.INVALID;
+        if (((Number) rows.get(0).get("expired")).intValue() == 1) {
+            jdbc.update(DELETE_VERIFICATION_CODE_QUERY, Map.of("userId", userId));
+            return VerificationResult.EXPIRED;
+        }
+        if (((Number) rows.get(0).get("attempts")).intValue() + 1 >= maxAttempts) {
+            jdbc.update(DELETE_VERIFICATION_CODE_QUERY, Map.of("userId", userId));
+            return VerificationResult.TOO_MANY_ATTEMPTS;
+        }
+        jdbc.update(INCREMENT_VERIFICATION_CODE_ATTEMPTS_QUERY, Map.of("userId", userId));
+        return VerificationResult.INVALID;
+    }
+}
@@ -0,0 +1,34 @@
+package tech.alexberbo.berboapp.verification;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Where the MFA codes are kept until they are used. Every user has at most one code, saving a new one replaces the old one.
+ * Only a SHA-256 hash of the user id and the code is stored, never the code itself.
+ * The backend is chosen with verification-code.store: jdbc (default, the TwoFactorVerifications table, shared by all the nodes)
+ * or memory (a local cache, only for a single node because the code has to be checked on the node that created it).
+ */
+public interface VerificationCodeStore {
+    /**
+     * The code expires after verification-code.ttl ms.
+     */
+    void save(Long userId, String code);
+
+    /**
+     * Checks the code and removes it when it is valid. A wrong code counts as an attempt,
+     * after verification-code.max-attempts wrong codes the code is removed and the user has to log in again.
+     */
+    VerificationResult verify(Long userId, String code);
+
+    static String hash(Long userId, String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((userId + ":" + code.trim().toUpperCase()).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package tech.alexberbo.berboapp.verification;
+
+public enum VerificationResult {
+    VALID,
+    INVALID,
+    EXPIRED,
+    TOO_MANY_ATTEMPTS
+}
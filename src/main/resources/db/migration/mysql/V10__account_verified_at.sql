@@ -0,0 +1,4 @@
+-- When the user confirmed the email. A user that never did gets a new verification link when registering again,
+-- which is told apart from a user that was disabled in the settings. The users enabled now count as verified.
+ALTER TABLE berboapp.Users ADD COLUMN verified_at DATETIME DEFAULT NULL;
+UPDATE berboapp.Users SET verified_at = created_date WHERE enabled = TRUE;
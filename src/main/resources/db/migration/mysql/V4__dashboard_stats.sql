@@ -0,0 +1,12 @@
+-- Counters shown on the dashboard, kept up to date by the create customer / invoice paths
+-- and reconciled against the customer and invoice tables by the StatsReconcileJob.
+CREATE TABLE berboapp.DashboardStats
+(
+    id              TINYINT UNSIGNED NOT NULL PRIMARY KEY,
+    total_customers BIGINT UNSIGNED NOT NULL DEFAULT 0,
+    total_invoices  BIGINT UNSIGNED NOT NULL DEFAULT 0,
+    total_billed    DOUBLE NOT NULL DEFAULT 0,
+    reconciled_at   DATETIME DEFAULT NULL
+);
+
+INSERT INTO berboapp.DashboardStats (id) VALUES (1);
@@ -0,0 +1,20 @@
+-- The customer table is created by Hibernate (ddl-auto) after Flyway runs, so on a new database it is created here first,
+-- with the same columns that Hibernate generates for the Customer entity.
+CREATE TABLE IF NOT EXISTS berboapp.customer
+(
+    id         BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    address    VARCHAR(255),
+    created_at DATETIME(6),
+    email      VARCHAR(255),
+    image_url  VARCHAR(255),
+    name       VARCHAR(255),
+    phone      VARCHAR(255),
+    status     VARCHAR(255),
+    type       VARCHAR(255)
+) ENGINE = InnoDB;
+
+-- Ranked search over name, email and phone. The ngram parser also matches parts of words (ngram_token_size, 2 by default).
+ALTER TABLE berboapp.customer ADD FULLTEXT INDEX ft_customer_search (name, email, phone) WITH PARSER ngram;
+
+-- Prefix search for the terms that are shorter than the ngram token size.
+CREATE INDEX idx_customer_name ON berboapp.customer (name);
@@ -0,0 +1,17 @@
+-- Emails waiting to be sent, written in the same transaction as the change that triggers them
+-- and sent by the EmailOutboxDispatcher. next_attempt_at is when the row can be picked up:
+-- for PENDING rows the next try, for SENDING rows the end of the claim of the dispatcher that took them.
+CREATE TABLE berboapp.EmailOutbox
+(
+    id              BIGINT UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    recipient       VARCHAR(100) NOT NULL,
+    subject         VARCHAR(255) NOT NULL,
+    body            TEXT NOT NULL,
+    status          VARCHAR(10) NOT NULL DEFAULT 'PENDING',
+    attempts        INT UNSIGNED NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error      VARCHAR(255) DEFAULT NULL,
+    created_at      DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at         DATETIME DEFAULT NULL,
+    INDEX idx_email_outbox_due (status, next_attempt_at)
+);
@@ -0,0 +1,7 @@
+-- MFA codes are stored as a SHA-256 hash (hex) and the wrong tries are counted per code.
+-- The codes that were stored in plain text can't be checked anymore, they are removed and the users log in again.
+DELETE FROM berboapp.TwoFactorVerifications;
+
+ALTER TABLE berboapp.TwoFactorVerifications
+    MODIFY code VARCHAR(64) NOT NULL,
+    ADD COLUMN attempts INT UNSIGNED NOT NULL DEFAULT 0;
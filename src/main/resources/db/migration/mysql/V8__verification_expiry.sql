@@ -0,0 +1,9 @@
+-- Account verification links expire like the other verification rows, the links that exist now get 7 days.
+ALTER TABLE berboapp.AccountVerifications ADD COLUMN expiration_date DATETIME DEFAULT NULL;
+UPDATE berboapp.AccountVerifications SET expiration_date = NOW() + INTERVAL 7 DAY;
+ALTER TABLE berboapp.AccountVerifications MODIFY expiration_date DATETIME NOT NULL;
+
+-- The ExpiredVerificationSweeper deletes by expiration_date in small chunks, the index keeps every chunk a range scan.
+CREATE INDEX idx_account_verifications_expiration ON berboapp.AccountVerifications (expiration_date);
+CREATE INDEX idx_password_reset_verifications_expiration ON berboapp.PasswordResetVerifications (expiration_date);
+CREATE INDEX idx_two_factor_verifications_expiration ON berboapp.TwoFactorVerifications (expiration_date);
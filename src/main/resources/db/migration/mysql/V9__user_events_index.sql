@@ -0,0 +1,3 @@
+-- SELECT_EVENTS_BY_USER_ID filters by user_id and reads the newest rows first, with this index it reads only the 10 rows it returns
+-- instead of sorting all the events of the user. The index created for the user_id foreign key is dropped by MySQL, this one replaces it.
+CREATE INDEX idx_user_events_user_created ON berboapp.UserEvents (user_id, created_at);
@@ -0,0 +1,43 @@
+package tech.alexberbo.berboapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A route limit without capacity or refill stops the startup instead of refusing every request or answering with an endless Retry-After.
+ */
+class RateLimitPropertiesTest {
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ValidationAutoConfiguration.class))
+            .withUserConfiguration(Properties.class)
+            .withPropertyValues("rate-limit.routes[0].method=POST", "rate-limit.routes[0].pattern=/user/login");
+
+    @Test
+    void positiveLimitsAreAccepted() {
+        runner.withPropertyValues("rate-limit.routes[0].per-ip.capacity=5", "rate-limit.routes[0].per-ip.refill-per-minute=0.2")
+                .run(context -> assertThat(context).hasNotFailed());
+    }
+
+    @Test
+    void zeroRefillFailsTheStartup() {
+        runner.withPropertyValues("rate-limit.routes[0].per-ip.capacity=5", "rate-limit.routes[0].per-ip.refill-per-minute=0")
+                .run(context -> assertThat(context).hasFailed().getFailure().hasStackTraceContaining("refillPerMinute"));
+    }
+
+    @Test
+    void zeroCapacityFailsTheStartup() {
+        runner.withPropertyValues("rate-limit.routes[0].per-email.capacity=0", "rate-limit.routes[0].per-email.refill-per-minute=1")
+                .run(context -> assertThat(context).hasFailed().getFailure().hasStackTraceContaining("capacity"));
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(RateLimitProperties.class)
+    static class Properties {
+    }
+}
@@ -0,0 +1,90 @@
+package tech.alexberbo.berboapp.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tech.alexberbo.berboapp.service.EventService;
+import tech.alexberbo.berboapp.service.RoleService;
+import tech.alexberbo.berboapp.service.UserService;
+import tech.alexberbo.berboapp.util.ImageStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.Mockito.mock;
+import static org.springframework.http.HttpHeaders.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+/**
+ * The profile image endpoint: the whole image with its ETag, 304 for a matching If-None-Match, 206 for a Range,
+ * and 404 for a missing image or a name that points out of the image directory.
+ */
+class UpdateUserControllerTest {
+    private static final byte[] IMAGE = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+    @TempDir
+    private Path root;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path directory = Files.createDirectory(root.resolve("images"));
+        Files.write(root.resolve("secret.png"), IMAGE);
+        ImageStorage storage = new ImageStorage(directory.toString(), 100);
+        storage.save("user@mail.com.png", new ByteArrayInputStream(IMAGE));
+        UpdateUserController controller = new UpdateUserController(mock(RoleService.class), mock(UserService.class),
+                mock(EventService.class), mock(ApplicationEventPublisher.class), storage);
+        ReflectionTestUtils.setField(controller, "imageMaxAge", 300L);
+        mvc = standaloneSetup(controller).build();
+    }
+
+    @Test
+    void imageIsSentWithETagAndCacheHeaders() throws Exception {
+        mvc.perform(get("/user/image/user@mail.com.png"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(IMAGE))
+                .andExpect(header().exists(ETAG))
+                .andExpect(header().exists(LAST_MODIFIED))
+                .andExpect(header().string(CACHE_CONTROL, "max-age=300, must-revalidate, public"));
+    }
+
+    @Test
+    void matchingETagIsNotModified() throws Exception {
+        MvcResult result = mvc.perform(get("/user/image/user@mail.com.png")).andReturn();
+        String etag = result.getResponse().getHeader(ETAG);
+        mvc.perform(get("/user/image/user@mail.com.png").header(IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mvc.perform(get("/user/image/user@mail.com.png").header(IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void rangeIsSentAsPartialContent() throws Exception {
+        mvc.perform(get("/user/image/user@mail.com.png").header(RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().bytes(new byte[]{3, 4, 5, 6}));
+    }
+
+    @Test
+    void missingImageIsNotFound() throws Exception {
+        mvc.perform(get("/user/image/missing.png")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void pathTraversalIsNotFound() throws Exception {
+        mvc.perform(get("/user/image/{fileName}", "../secret.png")).andExpect(status().isNotFound());
+        mvc.perform(get("/user/image/..%2Fsecret.png")).andExpect(status().isNotFound());
+    }
+}
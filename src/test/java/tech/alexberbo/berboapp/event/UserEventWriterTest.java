@@ -0,0 +1,100 @@
+package tech.alexberbo.berboapp.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import tech.alexberbo.berboapp.cache.EventTypeRegistry;
+import tech.alexberbo.berboapp.cache.UserCache;
+import tech.alexberbo.berboapp.repository.EventRepository;
+import tech.alexberbo.berboapp.util.DeviceAnalyzer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static tech.alexberbo.berboapp.enumerator.EventType.LOGIN_ATTEMPT_SUCCESS;
+
+/**
+ * A bad event is dropped and counted without stopping the writer thread, a transient failure is retried until the batch is stored.
+ */
+class UserEventWriterTest {
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final UserCache userCache = mock(UserCache.class);
+    private final EventTypeRegistry eventTypeRegistry = mock(EventTypeRegistry.class);
+    private final DeviceAnalyzer deviceAnalyzer = mock(DeviceAnalyzer.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private UserEventWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        when(userCache.getId(anyString())).thenReturn(1L);
+        when(userCache.getId(isNull())).thenReturn(null);
+        when(eventTypeRegistry.getId(any())).thenReturn(1L);
+        when(deviceAnalyzer.getDevice(nullable(String.class))).thenReturn("Device");
+        doAnswer(invocation -> {
+            List<PendingUserEvent> events = invocation.getArgument(0);
+            events.forEach(event -> written.add(event.getEmail()));
+            return null;
+        }).when(eventRepository).addUserEvents(anyList());
+        writer = new UserEventWriter(eventRepository, userCache, eventTypeRegistry, deviceAnalyzer, registry, 100, 10, 50, 1000, 10, 100);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.stop();
+    }
+
+    @Test
+    void poisonEventIsDroppedAndTheWriterKeepsWriting() throws InterruptedException {
+        // a null email fails while the user id is resolved
+        writer.addUserEvent(null, LOGIN_ATTEMPT_SUCCESS, "agent", "127.0.0.1");
+        writer.addUserEvent("user1@mail.com", LOGIN_ATTEMPT_SUCCESS, "agent", "127.0.0.1");
+        awaitWritten("user1@mail.com");
+        writer.addUserEvent(null, LOGIN_ATTEMPT_SUCCESS, "agent", "127.0.0.1");
+        Thread.sleep(200);
+        writer.addUserEvent("user2@mail.com", LOGIN_ATTEMPT_SUCCESS, "agent", "127.0.0.1");
+        awaitWritten("user2@mail.com");
+        assertThat(written).containsExactly("user1@mail.com", "user2@mail.com");
+        assertThat(registry.get("user.events.dropped").counter().count()).isEqualTo(2);
+        assertThat(registry.get("user.events.retried").counter().count()).isZero();
+    }
+
+    @Test
+    void rejectedEventIsDroppedAndTheOthersAreWritten() throws InterruptedException {
+        doThrow(new DataIntegrityViolationException("user deleted"))
+                .when(eventRepository).addUserEvents(argThat(events -> events.stream().anyMatch(event -> "deleted@mail.com".equals(event.getEmail()))));
+        writer.addUserEvent("user1@mail.com", LOGIN_ATTEMPT_SUCCESS, "agent", "127.0.0.1");
+        writer.addUserEvent("deleted@mail.com", LOGIN_ATTEMPT_SUCCESS, "agent", "127.0.0.1");
+        writer.addUserEvent("user2@mail.com", LOGIN_ATTEMPT_SUCCESS, "agent", "127.0.0.1");
+        awaitWritten("user2@mail.com");
+        assertThat(written).contains("user1@mail.com", "user2@mail.com").doesNotContain("deleted@mail.com");
+        assertThat(registry.get("user.events.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void transientFailureIsRetried() throws InterruptedException {
+        reset(eventRepository);
+        doThrow(new TransientDataAccessResourceException("connection lost")).doAnswer(invocation -> {
+            List<PendingUserEvent> events = invocation.getArgument(0);
+            events.forEach(event -> written.add(event.getEmail()));
+            return null;
+        }).when(eventRepository).addUserEvents(anyList());
+        writer.addUserEvent("user1@mail.com", LOGIN_ATTEMPT_SUCCESS, "agent", "127.0.0.1");
+        awaitWritten("user1@mail.com");
+        assertThat(registry.get("user.events.retried").counter().count()).isEqualTo(1);
+        assertThat(registry.get("user.events.dropped").counter().count()).isZero();
+    }
+
+    private void awaitWritten(String email) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!written.contains(email) && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertThat(written).contains(email);
+    }
+}
@@ -0,0 +1,125 @@
+package tech.alexberbo.berboapp.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.TestPropertySource;
+import tech.alexberbo.berboapp.dto.CustomerSummary;
+import tech.alexberbo.berboapp.dto.InvoiceSummary;
+import tech.alexberbo.berboapp.dto.ServiceSummary;
+import tech.alexberbo.berboapp.model.Customer;
+import tech.alexberbo.berboapp.model.Invoice;
+import tech.alexberbo.berboapp.model.ServiceCustomer;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.domain.PageRequest.of;
+import static org.springframework.data.domain.PageRequest.ofSize;
+
+/**
+ * Counts the statements Hibernate runs for the queries behind the customer, invoice and service endpoints,
+ * so the invoice graph can't sneak back into the lists as N+1 selects.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CustomerRepositoryTest {
+    private static final int CUSTOMERS = 5;
+    private static final int INVOICES_PER_CUSTOMER = 3;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ServiceCustomerRepository serviceCustomerRepository;
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+    private Long customerId;
+
+    @BeforeEach
+    void setUp() {
+        for (int c = 0; c < CUSTOMERS; c++) {
+            Customer customer = Customer.builder().name("Customer " + c).email("customer" + c + "@alexberbo.tech").createdAt(new Date()).build();
+            entityManager.persist(customer);
+            customerId = customer.getId();
+            for (int i = 0; i < INVOICES_PER_CUSTOMER; i++) {
+                ServiceCustomer service = ServiceCustomer.builder().name("Service " + c + i).serviceCustomerNumber("S" + c + i).price(10).fee(1).build();
+                entityManager.persist(service);
+                entityManager.persist(Invoice.builder().invoiceNumber("I" + c + i).total(11).customer(customer).serviceCustomer(service).build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void customerListRunsPageAndCountQueriesOnly() {
+        Page<CustomerSummary> page = customerRepository.findAllBy(of(0, 10));
+        page.forEach(CustomerSummary::getName);
+        assertThat(page.getContent()).hasSize(CUSTOMERS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void shortSearchTermRunsOneQuery() {
+        Slice<CustomerSummary> slice = customerRepository.findByNameStartingWithOrderByName("C", of(0, 10));
+        assertThat(slice.getContent()).hasSize(CUSTOMERS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void customerCursorRunsOneQuery() {
+        assertThat(customerRepository.findByIdLessThanOrderByIdDesc(Long.MAX_VALUE, ofSize(10)).getContent()).hasSize(CUSTOMERS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void invoiceCursorRunsOneQuery() {
+        Slice<InvoiceSummary> slice = invoiceRepository.findByIdLessThanOrderByIdDesc(Long.MAX_VALUE, ofSize(10));
+        slice.forEach(InvoiceSummary::getInvoiceNumber);
+        assertThat(slice.getContent()).hasSize(10);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void newInvoiceListsRunOneQueryEach() {
+        List<CustomerSummary> customers = customerRepository.findAllBy();
+        List<ServiceSummary> services = serviceCustomerRepository.findAllBy();
+        assertThat(customers).hasSize(CUSTOMERS);
+        assertThat(services).hasSize(CUSTOMERS * INVOICES_PER_CUSTOMER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void serviceListRunsPageAndCountQueriesOnly() {
+        Page<ServiceSummary> page = serviceCustomerRepository.findAllBy(of(0, 10));
+        assertThat(page.getContent()).hasSize(10);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void customerWithInvoicesIsFetchedWithJoins() {
+        Customer customer = customerRepository.findWithInvoicesById(customerId).orElseThrow();
+        customer.getInvoices().forEach(invoice -> invoice.getServiceCustomer().getName());
+        assertThat(customer.getInvoices()).hasSize(INVOICES_PER_CUSTOMER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,224 @@
+package tech.alexberbo.berboapp.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import tech.alexberbo.berboapp.constant.query.*;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace.NONE;
+import static org.springframework.data.domain.PageRequest.of;
+import static org.springframework.data.domain.PageRequest.ofSize;
+import static org.springframework.transaction.annotation.Propagation.NOT_SUPPORTED;
+
+/**
+ * Runs EXPLAIN for every query constant and for the derived queries behind the customer, invoice and service endpoints,
+ * on a MySQL container with the Flyway schema and a few thousand rows, and fails when a query reads a whole table.
+ * The catalogs (Roles, Events, DashboardStats) have a handful of rows and may be scanned, the queries in FULL_SCANS scan on purpose.
+ * The SQL of the derived queries is read from performance_schema, with the values MySQL received, so the pool has one connection
+ * and the statement history of the connection is made long enough for one call (HISTORY_SIZE, the default is 10).
+ * The schema is the one the app gets: Flyway first, then Hibernate ddl-auto update for the entity tables, the indexes of both are checked.
+ * Runs only with the query-plans profile (mvn -Pquery-plans verify, which sets -Dquery-plans=true), and then fails when Docker isn't available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = NONE)
+@EnabledIfSystemProperty(named = "query-plans", matches = "true", disabledReason = "needs Docker, run with -Pquery-plans")
+@Testcontainers
+@Transactional(propagation = NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.datasource.hikari.maximum-pool-size=1"
+})
+class QueryPlanTest {
+    private static final Class<?>[] QUERIES = {UserQuery.class, RoleQuery.class, EventQuery.class, StatsQuery.class, CustomerQuery.class,
+            ReportQuery.class, EmailOutboxQuery.class, VerificationCodeQuery.class, SweeperQuery.class};
+    private static final Set<String> SMALL_TABLES = Set.of("roles", "events", "dashboardstats");
+    // The reconcile job counts the whole customer and invoice tables every few minutes
+    private static final Set<String> FULL_SCANS = Set.of("StatsQuery.RECOUNT_STATS_QUERY");
+    private static final Map<String, Object> SAMPLES = Map.ofEntries(
+            Map.entry("email", "user1@mail.com"),
+            Map.entry("emails", List.of("user1@mail.com", "user2@mail.com")),
+            Map.entry("url", "account-1"),
+            Map.entry("code", "code"),
+            Map.entry("term", "Customer"),
+            Map.entry("ids", List.of(1L, 2L)),
+            Map.entry("createdAt", new Date()),
+            Map.entry("expirationDate", new Date()),
+            Map.entry("enabled", true),
+            Map.entry("notLocked", true),
+            Map.entry("isUsingMfa", true),
+            Map.entry("lastId", 1000L),
+            Map.entry("size", 100),
+            Map.entry("limit", 100));
+    private static final Set<String> TEXT = Set.of("firstName", "lastName", "password", "newPassword", "phone", "title", "bio", "address",
+            "imageUrl", "device", "ipAddress", "recipient", "subject", "body", "error");
+    private static final int ROWS = 2000;
+    private static final int HISTORY_SIZE = 1000;
+
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0.33")
+            .withDatabaseName("berboapp").withUsername("root").withPassword("password")
+            .withCommand("--lower-case-table-names=1", "--performance-schema-max-sql-text-length=8192",
+                    "--performance-schema-events-statements-history-size=" + HISTORY_SIZE);
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+    @Autowired
+    private ServiceCustomerRepository serviceCustomerRepository;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", mysql::getJdbcUrl);
+        registry.add("spring.datasource.username", mysql::getUsername);
+        registry.add("spring.datasource.password", mysql::getPassword);
+        registry.add("spring.flyway.url", mysql::getJdbcUrl);
+        registry.add("spring.flyway.user", mysql::getUsername);
+        registry.add("spring.flyway.password", mysql::getPassword);
+    }
+
+    @BeforeAll
+    static void seed(@Autowired NamedParameterJdbcTemplate jdbc) {
+        String rows = "WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < " + ROWS + ") ";
+        Stream.of(
+                "SET SESSION cte_max_recursion_depth = " + ROWS,
+                "INSERT INTO Users (first_name, last_name, email, password, enabled) " + rows + "SELECT 'First', 'Last', CONCAT('user', n, '@mail.com'), 'password', TRUE FROM seq",
+                "INSERT INTO UserRoles (user_id, role_id) SELECT user_id, (SELECT MIN(role_id) FROM Roles) FROM Users",
+                "INSERT INTO UserEvents (user_id, event_id, device, ip_address, created_at) SELECT u.user_id, e.event_id, 'Device', '127.0.0.1', NOW() - INTERVAL e.event_id HOUR FROM Users u CROSS JOIN Events e",
+                "INSERT INTO AccountVerifications (user_id, url, expiration_date) SELECT user_id, CONCAT('account-', user_id), NOW() + INTERVAL 1 DAY FROM Users",
+                "INSERT INTO PasswordResetVerifications (user_id, url, expiration_date) SELECT user_id, CONCAT('reset-', user_id), NOW() + INTERVAL 1 DAY FROM Users",
+                "INSERT INTO TwoFactorVerifications (user_id, code, expiration_date) SELECT user_id, SHA2(user_id, 256), NOW() + INTERVAL 1 DAY FROM Users",
+                "INSERT INTO EmailOutbox (recipient, subject, body, status, sent_at) SELECT email, 'Subject', 'Body', 'SENT', NOW() FROM Users",
+                "INSERT INTO customer (name, email, phone, address, status, type, created_at) " + rows + "SELECT CONCAT(LEFT(MD5(n), 6), ' Customer'), CONCAT('customer', n, '@mail.com'), CONCAT('555', n), 'Address', 'ACTIVE', 'INDIVIDUAL', NOW() FROM seq",
+                "INSERT INTO service_customer (service_customer_number, name, price, fee) " + rows + "SELECT CONCAT('S-', n), 'Service', 100, 10 FROM seq",
+                "INSERT INTO invoice (invoice_number, service_name, status, total, created_at, customer_id, service_customer_id) SELECT CONCAT('I-', c.id), 'Service', 'PAID', 110, NOW(), c.id, s.id FROM customer c JOIN service_customer s ON s.id = c.id",
+                "ANALYZE TABLE Users, UserRoles, UserEvents, AccountVerifications, PasswordResetVerifications, TwoFactorVerifications, EmailOutbox, customer, service_customer, invoice"
+        ).forEach(statement -> jdbc.getJdbcOperations().execute(statement));
+    }
+
+    static Stream<Arguments> queries() {
+        List<Arguments> queries = new ArrayList<>();
+        for (Class<?> type : QUERIES) {
+            for (Field field : type.getFields()) {
+                try {
+                    queries.add(Arguments.of(type.getSimpleName() + "." + field.getName(), field.get(null)));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return queries.stream();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void queryDoesNotScanWholeTables(String name, String sql) {
+        assertNoFullScan(name, jdbc.queryForList("EXPLAIN " + sql, new SampleParameters()));
+    }
+
+    @Test
+    void userEventsAreReadInIndexOrder() {
+        List<Map<String, Object>> plan = jdbc.queryForList("EXPLAIN " + EventQuery.SELECT_EVENTS_BY_USER_ID, new SampleParameters());
+        assertThat(plan).extracting(row -> String.valueOf(row.get("Extra"))).noneMatch(extra -> extra.contains("Using filesort"));
+    }
+
+    @Test
+    void insertWithSubqueryLooksUpTheUserByIndex() {
+        List<Map<String, Object>> plan = jdbc.queryForList("EXPLAIN " + EventQuery.INSERT_USER_EVENT_BY_EMAIL_QUERY, new SampleParameters());
+        assertThat(plan).as("plan: %s", plan).anySatisfy(row -> {
+            assertThat(String.valueOf(row.get("table"))).isEqualToIgnoringCase("Users");
+            assertThat(row.get("type")).isIn("const", "eq_ref", "ref");
+        });
+    }
+
+    @Test
+    void flywayIndexesAreOnTheTablesTheAppUses() {
+        List<String> indexes = jdbc.getJdbcOperations().queryForList(
+                "SELECT DISTINCT LOWER(CONCAT(TABLE_NAME, '.', INDEX_NAME)) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE()", String.class);
+        assertThat(indexes).contains("customer.ft_customer_search", "customer.idx_customer_name", "userevents.idx_user_events_user_created");
+        assertThat(jdbc.getJdbcOperations().queryForList(
+                "SELECT LOWER(TABLE_NAME) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE()", String.class))
+                .contains("customer", "invoice", "service_customer", "users", "userevents", "dashboardstats");
+    }
+
+    @Test
+    void derivedQueriesDoNotScanWholeTables() {
+        Map<String, Runnable> calls = new LinkedHashMap<>();
+        calls.put("CustomerRepository.findAllByOrderByIdDesc", () -> customerRepository.findAllByOrderByIdDesc(of(0, 10)));
+        calls.put("CustomerRepository.findByIdLessThanOrderByIdDesc", () -> customerRepository.findByIdLessThanOrderByIdDesc(1000L, ofSize(10)));
+        calls.put("CustomerRepository.findByNameStartingWithOrderByName", () -> customerRepository.findByNameStartingWithOrderByName("ab", of(0, 10)));
+        calls.put("CustomerRepository.searchByTerm", () -> customerRepository.searchByTerm("Customer", of(0, 10)));
+        calls.put("CustomerRepository.findWithInvoicesById", () -> customerRepository.findWithInvoicesById(1L));
+        calls.put("InvoiceRepository.findByIdLessThanOrderByIdDesc", () -> invoiceRepository.findByIdLessThanOrderByIdDesc(1000L, ofSize(10)));
+        calls.put("ServiceCustomerRepository.findByIdLessThanOrderByIdDesc", () -> serviceCustomerRepository.findByIdLessThanOrderByIdDesc(1000L, ofSize(10)));
+        calls.put("ServiceCustomerRepository.findById", () -> serviceCustomerRepository.findById(1L));
+        calls.forEach((name, call) -> {
+            List<String> statements = executedStatements(call);
+            assertThat(statements).as("Statements of %s", name).isNotEmpty();
+            statements.forEach(sql -> assertNoFullScan(name, jdbc.getJdbcOperations().queryForList("EXPLAIN " + sql)));
+        });
+    }
+
+    private void assertNoFullScan(String name, List<Map<String, Object>> plan) {
+        if (FULL_SCANS.contains(name)) return;
+        List<Object> scanned = plan.stream()
+                .filter(row -> "ALL".equals(row.get("type")) && !"INSERT".equals(row.get("select_type")))
+                .map(row -> row.get("table"))
+                .filter(table -> table != null && !table.toString().startsWith("<") && !SMALL_TABLES.contains(table.toString().toLowerCase()))
+                .toList();
+        assertThat(scanned).as("%s reads whole tables, plan: %s", name, plan).isEmpty();
+    }
+
+    /**
+     * The SELECT statements the call sent on the (only) connection, taken from its statement history.
+     */
+    private List<String> executedStatements(Runnable call) {
+        Long last = jdbc.getJdbcOperations().queryForObject(
+                "SELECT COALESCE(MAX(EVENT_ID), 0) FROM performance_schema.events_statements_history WHERE THREAD_ID = PS_CURRENT_THREAD_ID()", Long.class);
+        call.run();
+        Integer events = jdbc.getJdbcOperations().queryForObject(
+                "SELECT COUNT(*) FROM performance_schema.events_statements_history WHERE THREAD_ID = PS_CURRENT_THREAD_ID() AND EVENT_ID > ?", Integer.class, last);
+        assertThat(events).as("statement history of the call was cut").isLessThan(HISTORY_SIZE);
+        return jdbc.getJdbcOperations().queryForList(
+                "SELECT SQL_TEXT FROM performance_schema.events_statements_history WHERE THREAD_ID = PS_CURRENT_THREAD_ID() AND EVENT_ID > ? " +
+                        "AND SQL_TEXT LIKE 'select%' AND SQL_TEXT NOT LIKE '%performance_schema%' ORDER BY EVENT_ID", String.class, last);
+    }
+
+    /**
+     * A value of the right type for every named parameter of the query constants, the ids point to seeded rows.
+     */
+    private static class SampleParameters extends AbstractSqlParameterSource {
+        @Override
+        public boolean hasValue(String name) {
+            return true;
+        }
+
+        @Override
+        public Object getValue(String name) {
+            if (TEXT.contains(name)) return "sample";
+            return SAMPLES.getOrDefault(name, 1L);
+        }
+    }
+}
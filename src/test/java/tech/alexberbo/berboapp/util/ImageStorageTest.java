@@ -0,0 +1,79 @@
+package tech.alexberbo.berboapp.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import tech.alexberbo.berboapp.exception.ApiException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Only plain png names inside the image directory are resolved, anything pointing out of it is treated as a missing image,
+ * and the ETag follows the content of the file.
+ */
+class ImageStorageTest {
+    @TempDir
+    private Path root;
+    private Path directory;
+    private ImageStorage storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createDirectory(root.resolve("images"));
+        Files.write(root.resolve("secret.png"), new byte[]{1, 2, 3});
+        storage = new ImageStorage(directory.toString(), 100);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"../secret.png", "..\\secret.png", "images/../../secret.png", "/secret.png", "secret.jpg", "secret.png.exe", ".png", ""})
+    void namesOutsideTheDirectoryOrNotPngAreNotResolved(String fileName) {
+        assertThat(storage.getImage(fileName)).isEmpty();
+        assertThat(storage.exists(fileName)).isFalse();
+        assertThatThrownBy(() -> storage.save(fileName, new ByteArrayInputStream(new byte[]{4})))
+                .isInstanceOf(ApiException.class).hasMessage("Invalid image name!");
+        assertThat(root.resolve("secret.png")).hasBinaryContent(new byte[]{1, 2, 3});
+    }
+
+    @Test
+    void nullNameIsNotResolved() {
+        assertThat(storage.getImage(null)).isEmpty();
+        assertThat(storage.exists(null)).isFalse();
+    }
+
+    @Test
+    void savedImageIsReadFromTheDirectory() throws IOException {
+        storage.save("user@mail.com.png", new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        assertThat(storage.exists("user@mail.com.png")).isTrue();
+        assertThat(storage.getImage("user@mail.com.png")).hasValueSatisfying(image -> {
+            assertThat(image.etag()).hasSize(32);
+            assertThat(image.lastModified()).isPositive();
+        });
+        assertThat(directory.resolve("user@mail.com.png")).hasBinaryContent(new byte[]{1, 2, 3});
+        try (var files = Files.list(directory)) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    void missingImageIsEmpty() {
+        assertThat(storage.getImage("missing.png")).isEmpty();
+        assertThat(storage.exists("missing.png")).isFalse();
+    }
+
+    @Test
+    void etagChangesWhenTheImageIsReplaced() {
+        storage.save("user.png", new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        String etag = storage.getImage("user.png").orElseThrow().etag();
+        assertThat(storage.getImage("user.png").orElseThrow().etag()).isEqualTo(etag);
+        storage.save("user.png", new ByteArrayInputStream(new byte[]{1, 2, 3, 4}));
+        assertThat(storage.getImage("user.png").orElseThrow().etag()).isNotEqualTo(etag);
+    }
+}
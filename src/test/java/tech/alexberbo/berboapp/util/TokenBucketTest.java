@@ -0,0 +1,82 @@
+package tech.alexberbo.berboapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * The bucket starts full, refuses a call once it is empty with the wait until the next token, refills over time
+ * and never hands out more tokens than it has when many threads take them at once.
+ */
+class TokenBucketTest {
+    @Test
+    void startsFullAndRefusesWhenEmpty() {
+        TokenBucket bucket = new TokenBucket(3, 1);
+        for (int i = 0; i < 3; i++) assertThat(bucket.tryConsume()).isZero();
+        assertThat(bucket.tryConsume()).isPositive().isLessThanOrEqualTo(TimeUnit.MINUTES.toNanos(1));
+    }
+
+    @Test
+    void slowRefillKeepsTheBucketEmpty() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 0.2);
+        assertThat(bucket.tryConsume()).isZero();
+        Thread.sleep(20);
+        assertThat(bucket.tryConsume()).isPositive().isLessThanOrEqualTo(TimeUnit.MINUTES.toNanos(5));
+    }
+
+    @Test
+    void capacityAndRefillHaveToBePositive() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new TokenBucket(0, 1));
+        assertThatIllegalArgumentException().isThrownBy(() -> new TokenBucket(-1, 1));
+        assertThatIllegalArgumentException().isThrownBy(() -> new TokenBucket(1, 0));
+        assertThatIllegalArgumentException().isThrownBy(() -> new TokenBucket(1, Double.NaN));
+    }
+
+    @Test
+    void refillsAtTheGivenRate() throws InterruptedException {
+        // 60000 tokens a minute, one every millisecond
+        TokenBucket bucket = new TokenBucket(1, 60000);
+        assertThat(bucket.tryConsume()).isZero();
+        assertThat(bucket.tryConsume()).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(1));
+        Thread.sleep(5);
+        assertThat(bucket.tryConsume()).isZero();
+    }
+
+    @Test
+    void refillStopsAtTheCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(2, 60000);
+        Thread.sleep(20);
+        assertThat(bucket.tryConsume()).isZero();
+        assertThat(bucket.tryConsume()).isZero();
+        assertThat(bucket.tryConsume()).isPositive();
+    }
+
+    @Test
+    void concurrentCallsTakeOnlyTheTokensThereAre() throws Exception {
+        int capacity = 100;
+        // one token a day, none comes back while the threads run
+        TokenBucket bucket = new TokenBucket(capacity, 1.0 / 1440);
+        AtomicInteger taken = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int thread = 0; thread < 8; thread++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 50; i++) if (bucket.tryConsume() == 0) taken.incrementAndGet();
+                    return null;
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(taken).hasValue(capacity);
+    }
+}
@@ -0,0 +1,75 @@
+package tech.alexberbo.berboapp.verification;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.alexberbo.berboapp.verification.VerificationResult.*;
+
+/**
+ * A code is valid once, a wrong code counts an attempt until max-attempts removes the code,
+ * and an expired code is gone (INVALID).
+ */
+class InMemoryVerificationCodeStoreTest {
+    private static final long TTL = 86400000;
+    private final InMemoryVerificationCodeStore store = new InMemoryVerificationCodeStore(100, TTL, 3);
+
+    @Test
+    void codeIsValidOnce() {
+        store.save(1L, "ABCD1234");
+        assertThat(store.verify(1L, "ABCD1234")).isEqualTo(VALID);
+        assertThat(store.verify(1L, "ABCD1234")).isEqualTo(INVALID);
+    }
+
+    @Test
+    void codeBelongsToItsUser() {
+        store.save(1L, "ABCD1234");
+        assertThat(store.verify(2L, "ABCD1234")).isEqualTo(INVALID);
+        assertThat(store.verify(1L, "ABCD1234")).isEqualTo(VALID);
+    }
+
+    @Test
+    void wrongCodesUpToTheLimitKeepTheCode() {
+        store.save(1L, "ABCD1234");
+        assertThat(store.verify(1L, "WRONG")).isEqualTo(INVALID);
+        assertThat(store.verify(1L, "WRONG")).isEqualTo(INVALID);
+        assertThat(store.verify(1L, "ABCD1234")).isEqualTo(VALID);
+    }
+
+    @Test
+    void lastAttemptRemovesTheCode() {
+        store.save(1L, "ABCD1234");
+        assertThat(store.verify(1L, "WRONG")).isEqualTo(INVALID);
+        assertThat(store.verify(1L, "WRONG")).isEqualTo(INVALID);
+        assertThat(store.verify(1L, "WRONG")).isEqualTo(TOO_MANY_ATTEMPTS);
+        assertThat(store.verify(1L, "ABCD1234")).isEqualTo(INVALID);
+    }
+
+    @Test
+    void newCodeResetsTheAttempts() {
+        store.save(1L, "ABCD1234");
+        assertThat(store.verify(1L, "WRONG")).isEqualTo(INVALID);
+        assertThat(store.verify(1L, "WRONG")).isEqualTo(INVALID);
+        store.save(1L, "EFGH5678");
+        assertThat(store.verify(1L, "ABCD1234")).isEqualTo(INVALID);
+        assertThat(store.verify(1L, "WRONG")).isEqualTo(INVALID);
+        assertThat(store.verify(1L, "EFGH5678")).isEqualTo(VALID);
+    }
+
+    @Test
+    void expiredCodeIsInvalid() throws InterruptedException {
+        InMemoryVerificationCodeStore store = new InMemoryVerificationCodeStore(100, 50, 3);
+        store.save(1L, "ABCD1234");
+        Thread.sleep(100);
+        assertThat(store.verify(1L, "ABCD1234")).isEqualTo(INVALID);
+    }
+
+    @Test
+    void attemptDoesNotExtendTheExpiration() throws InterruptedException {
+        InMemoryVerificationCodeStore store = new InMemoryVerificationCodeStore(100, 200, 5);
+        store.save(1L, "ABCD1234");
+        Thread.sleep(120);
+        assertThat(store.verify(1L, "WRONG")).isEqualTo(INVALID);
+        Thread.sleep(120);
+        assertThat(store.verify(1L, "ABCD1234")).isEqualTo(INVALID);
+    }
+}